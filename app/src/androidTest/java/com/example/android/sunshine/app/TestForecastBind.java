@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app;
+
+import android.content.Context;
+import android.database.MatrixCursor;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.test.AndroidTestCase;
+import android.util.Log;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+import android.widget.AbsListView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    Measures binding of forecast list items while scrolling. Compares binding items prepared by
+    ForecastLoader with formatting every row from the cursor at bind time, as the adapter used to.
+ */
+public class TestForecastBind extends AndroidTestCase {
+    public static final String LOG_TAG = TestForecastBind.class.getSimpleName();
+
+    private static final int DAYS = 14;
+    // Binds per run, roughly a long fling through the list back and forth
+    private static final int BINDS = 2000;
+    private static final int WARM_UP_BINDS = 200;
+
+    private Context mContext;
+    private MatrixCursor mCursor;
+    private ForecastAdapter mAdapter;
+    private ForecastAdapter.ForecastAdapterViewHolder mTodayHolder;
+    private ForecastAdapter.ForecastAdapterViewHolder mDayHolder;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mContext = new ContextThemeWrapper(getContext(), R.style.AppTheme);
+
+        mCursor = new MatrixCursor(ForecastFragment.FORECAST_COLUMNS);
+        long today = System.currentTimeMillis();
+        int[] conditions = {800, 801, 500, 211, 601, 741, 300};
+        for (int i = 0; i < DAYS; i++) {
+            mCursor.addRow(new Object[]{i, today + i * 86400000L, "Clear", 20.0 + i, 10.0 - i,
+                    "99705", conditions[i % conditions.length], "64.7488", "-147.353"});
+        }
+
+        // Local graphics, so binding does not depend on the network
+        List<ForecastItem> items = new ArrayList<>();
+        while (mCursor.moveToNext()) {
+            items.add(ForecastItem.fromCursor(mContext, mCursor, items.isEmpty(), true));
+        }
+
+        RecyclerView parent = new RecyclerView(mContext);
+        parent.setLayoutManager(new LinearLayoutManager(mContext));
+        mAdapter = new ForecastAdapter(mContext, null, new View(mContext),
+                AbsListView.CHOICE_MODE_NONE);
+        mAdapter.swapForecast(items, null);
+        mTodayHolder = mAdapter.onCreateViewHolder(parent, mAdapter.getItemViewType(0));
+        mDayHolder = mAdapter.onCreateViewHolder(parent, mAdapter.getItemViewType(1));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mCursor.close();
+        super.tearDown();
+    }
+
+    public void testItemsMatchCursor() {
+        for (int position = 0; position < DAYS; position++) {
+            mCursor.moveToPosition(position);
+            ForecastItem item = mAdapter.getItem(position);
+            assertEquals(mCursor.getLong(ForecastFragment.COL_WEATHER_DATE), item.date);
+            assertEquals(Utility.formatTemperature(mContext,
+                    mCursor.getDouble(ForecastFragment.COL_WEATHER_MAX_TEMP)), item.highText);
+            assertEquals(Utility.getFriendlyDayString(mContext,
+                    mCursor.getLong(ForecastFragment.COL_WEATHER_DATE), false), item.dayText);
+            assertNull("Local graphics don't have art url", item.artUrl);
+        }
+        assertNotNull("First item has long today text", mAdapter.getItem(0).todayText);
+    }
+
+    public void testPreparedBindIsFaster() {
+        bindPrepared(WARM_UP_BINDS);
+        bindFromCursor(WARM_UP_BINDS);
+
+        long preparedNanos = bindPrepared(BINDS);
+        long cursorNanos = bindFromCursor(BINDS);
+
+        Log.i(LOG_TAG, "Prepared bind: " + preparedNanos / BINDS / 1000f + " us, cursor bind: "
+                + cursorNanos / BINDS / 1000f + " us");
+        assertTrue("Binding prepared items should be faster than formatting at bind time",
+                preparedNanos < cursorNanos);
+    }
+
+    private long bindPrepared(int binds) {
+        long start = System.nanoTime();
+        for (int i = 0; i < binds; i++) {
+            int position = i % DAYS;
+            mAdapter.onBindViewHolder(position == 0 ? mTodayHolder : mDayHolder, position);
+        }
+        return System.nanoTime() - start;
+    }
+
+    /*
+        Same work the adapter did per bind when it was backed by the cursor.
+     */
+    private long bindFromCursor(int binds) {
+        long start = System.nanoTime();
+        for (int i = 0; i < binds; i++) {
+            int position = i % DAYS;
+            ForecastAdapter.ForecastAdapterViewHolder holder =
+                    position == 0 ? mTodayHolder : mDayHolder;
+            mCursor.moveToPosition(position);
+            int weatherId = mCursor.getInt(ForecastFragment.COL_WEATHER_CONDITION_ID);
+            // The adapter read the preference on every bind
+            Utility.usingLocalGraphics(mContext);
+            holder.mIconView.setImageResource(position == 0
+                    ? Utility.getArtResourceForWeatherCondition(weatherId)
+                    : Utility.getIconResourceForWeatherCondition(weatherId));
+            holder.mDateView.setText(Utility.getFriendlyDayString(mContext,
+                    mCursor.getLong(ForecastFragment.COL_WEATHER_DATE), position == 0));
+            String description = Utility.getStringForWeatherCondition(mContext, weatherId);
+            holder.mDescriptionView.setText(description);
+            holder.mDescriptionView.setContentDescription(
+                    mContext.getString(R.string.a11y_forecast, description));
+            String high = Utility.formatTemperature(mContext,
+                    mCursor.getDouble(ForecastFragment.COL_WEATHER_MAX_TEMP));
+            holder.mHighTempView.setText(high);
+            holder.mHighTempView.setContentDescription(
+                    mContext.getString(R.string.a11y_high_temp, high));
+            String low = Utility.formatTemperature(mContext,
+                    mCursor.getDouble(ForecastFragment.COL_WEATHER_MIN_TEMP));
+            holder.mLowTempView.setText(low);
+            holder.mLowTempView.setContentDescription(
+                    mContext.getString(R.string.a11y_low_temp, low));
+        }
+        return System.nanoTime() - start;
+    }
+}
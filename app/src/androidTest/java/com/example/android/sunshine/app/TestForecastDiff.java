@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app;
+
+import android.database.MatrixCursor;
+import android.support.v7.widget.RecyclerView;
+import android.test.AndroidTestCase;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AbsListView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+    Applies calculated diffs to the old snapshot and checks the result matches the new one, and
+    that selections follow their rows.
+ */
+public class TestForecastDiff extends AndroidTestCase {
+    private static final long DAY = 86400000L;
+    private static final long TODAY = 1419033600000L;  // December 20th, 2014
+
+    public void testSameSnapshotHasNoChanges() {
+        List<ForecastItem> items = buildItems(0, 14, -1);
+        assertTrue(ForecastDiff.calculate(items, buildItems(0, 14, -1)).isEmpty());
+    }
+
+    public void testSingleDayChanged() {
+        List<ForecastItem> oldItems = buildItems(0, 14, -1);
+        List<ForecastItem> newItems = buildItems(0, 14, 5);
+        ForecastDiff diff = ForecastDiff.calculate(oldItems, newItems);
+
+        RecordingAdapter adapter = applyDiff(oldItems, newItems, diff);
+        assertEquals("Only the changed day is notified", 1, diff.getOperationCount());
+        assertEquals(Arrays.asList(5), adapter.mChanged);
+    }
+
+    public void testNextDay() {
+        // Yesterday is gone, a new day is added and the first row uses the today layout
+        List<ForecastItem> oldItems = buildItems(0, 14, -1);
+        List<ForecastItem> newItems = buildItems(1, 14, -1);
+        ForecastDiff diff = ForecastDiff.calculate(oldItems, newItems);
+
+        RecordingAdapter adapter = applyDiff(oldItems, newItems, diff);
+        assertEquals("Removal, change of the first row and insertion expected",
+                3, diff.getOperationCount());
+        assertEquals(Arrays.asList(0), adapter.mChanged);
+    }
+
+    public void testMismatchedSnapshots() {
+        applyDiff(buildItems(0, 14, -1), buildItems(20, 7, -1), null);
+        applyDiff(buildItems(0, 3, -1), buildItems(0, 14, 2), null);
+        applyDiff(buildItems(5, 14, 7), buildItems(0, 7, -1), null);
+        applyDiff(buildItems(0, 1, -1), buildItems(3, 1, -1), null);
+    }
+
+    public void testSelectionFollowsRow() {
+        List<ForecastItem> oldItems = buildItems(0, 14, -1);
+        List<ForecastItem> newItems = buildItems(2, 14, -1);
+        RecordingAdapter adapter = new RecordingAdapter(oldItems);
+        ItemChoiceManager choiceManager = new ItemChoiceManager(adapter);
+        choiceManager.setChoiceMode(AbsListView.CHOICE_MODE_SINGLE);
+        choiceManager.mCheckStates.put(5, true);
+        choiceManager.mCheckedIdStates.put(oldItems.get(5).date, 5);
+
+        adapter.mItems = newItems;
+        ForecastDiff.calculate(oldItems, newItems).dispatchUpdatesTo(adapter);
+        assertEquals("Selected day should have moved up by two rows",
+                3, choiceManager.getSelectedItemPosition());
+        assertEquals(oldItems.get(5).date, newItems.get(3).date);
+    }
+
+    /*
+        Builds items for consecutive days, with a different temperature on the given day.
+     */
+    private List<ForecastItem> buildItems(int firstDay, int days, int changedDay) {
+        MatrixCursor cursor = new MatrixCursor(ForecastFragment.FORECAST_COLUMNS);
+        for (int day = firstDay; day < firstDay + days; day++) {
+            cursor.addRow(new Object[]{day, TODAY + day * DAY, "Clear",
+                    day == changedDay ? 30.0 : 20.0, 10.0, "99705", 800, "64.7488", "-147.353"});
+        }
+        List<ForecastItem> items = ForecastLoader.buildItems(getContext(), cursor);
+        cursor.close();
+        return items;
+    }
+
+    /*
+        Replays the diff on a copy of the old dates and checks it ends up with the new dates.
+     */
+    private RecordingAdapter applyDiff(List<ForecastItem> oldItems, List<ForecastItem> newItems,
+                                       ForecastDiff diff) {
+        if (diff == null) {
+            diff = ForecastDiff.calculate(oldItems, newItems);
+        }
+        RecordingAdapter adapter = new RecordingAdapter(oldItems);
+        adapter.mItems = newItems;
+        diff.dispatchUpdatesTo(adapter);
+
+        List<Long> expected = new ArrayList<>();
+        for (ForecastItem item : newItems) {
+            expected.add(item.date);
+        }
+        assertEquals(expected, adapter.mDates);
+        for (int position : adapter.mChanged) {
+            assertTrue("Changed position out of range", position < newItems.size());
+        }
+        return adapter;
+    }
+
+    private static class RecordingAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+        List<ForecastItem> mItems;
+        // Dates as the list would show them after the received notifications
+        final List<Long> mDates = new ArrayList<>();
+        final List<Integer> mChanged = new ArrayList<>();
+
+        RecordingAdapter(List<ForecastItem> items) {
+            mItems = items;
+            for (ForecastItem item : items) {
+                mDates.add(item.date);
+            }
+            setHasStableIds(true);
+            registerAdapterDataObserver(new AdapterDataObserver() {
+                @Override
+                public void onItemRangeChanged(int positionStart, int itemCount) {
+                    for (int i = 0; i < itemCount; i++) {
+                        mChanged.add(positionStart + i);
+                    }
+                }
+
+                @Override
+                public void onItemRangeInserted(int positionStart, int itemCount) {
+                    for (int i = 0; i < itemCount; i++) {
+                        mDates.add(positionStart + i, mItems.get(positionStart + i).date);
+                    }
+                }
+
+                @Override
+                public void onItemRangeRemoved(int positionStart, int itemCount) {
+                    for (int i = 0; i < itemCount; i++) {
+                        mDates.remove(positionStart);
+                    }
+                }
+            });
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            return new RecyclerView.ViewHolder(new View(parent.getContext())) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return mItems.get(position).date;
+        }
+
+        @Override
+        public int getItemCount() {
+            return mItems.size();
+        }
+    }
+}
@@ -16,9 +16,10 @@
 package com.example.android.sunshine.app;
 
 import android.content.Context;
-import android.database.Cursor;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.v4.view.ViewCompat;
 import android.support.v7.widget.RecyclerView;
 import android.util.Log;
@@ -29,14 +30,23 @@ import android.widget.Checkable;
 import android.widget.ImageView;
 import android.widget.TextView;
 
+import com.bumptech.glide.GenericRequestBuilder;
 import com.bumptech.glide.Glide;
-import com.example.android.sunshine.app.data.WeatherContract;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.util.ViewPreloadSizeProvider;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * {@link ForecastAdapter} exposes a list of weather forecasts
- * from a {@link android.database.Cursor} to a {@link android.support.v7.widget.RecyclerView}.
+ * prepared by {@link ForecastLoader} to a {@link android.support.v7.widget.RecyclerView}.
  */
-public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.ForecastAdapterViewHolder> {
+public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.ForecastAdapterViewHolder>
+        implements ListPreloader.PreloadModelProvider<String>,
+        ListPreloader.PreloadSizeProvider<String> {
 
     private static final int VIEW_TYPE_TODAY = 0;
     private static final int VIEW_TYPE_FUTURE_DAY = 1;
@@ -44,11 +54,20 @@ public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.Foreca
     // Flag to determine if we want to use a separate view for "today".
     private boolean mUseTodayLayout = true;
 
-    private Cursor mCursor;
+    // Compares snapshots one at a time, in the order they were loaded
+    private static final ExecutorService sDiffExecutor = Executors.newSingleThreadExecutor();
+
+    private List<ForecastItem> mItems;
+    // Incremented by every swap, so comparisons of replaced snapshots are dropped
+    private int mSwapGeneration;
+    final private Handler mMainHandler = new Handler(Looper.getMainLooper());
     final private Context mContext;
     final private ForecastAdapterOnClickHandler mClickHandler;
     final private View mEmptyView;
     final private ItemChoiceManager mICM;
+    // Sizes of icon views the art is shown in, art is preloaded at exactly these sizes
+    final private ViewPreloadSizeProvider<String> mTodayIconSize = new ViewPreloadSizeProvider<>();
+    final private ViewPreloadSizeProvider<String> mDayIconSize = new ViewPreloadSizeProvider<>();
 
     /**
      * Cache of the children views for a forecast list item.
@@ -73,9 +92,7 @@ public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.Foreca
         @Override
         public void onClick(View v) {
             int adapterPosition = getAdapterPosition();
-            mCursor.moveToPosition(adapterPosition);
-            int dateColumnIndex = mCursor.getColumnIndex(WeatherContract.WeatherEntry.COLUMN_DATE);
-            mClickHandler.onClick(mCursor.getLong(dateColumnIndex), this);
+            mClickHandler.onClick(mItems.get(adapterPosition).date, this);
             mICM.onClick(this);
         }
     }
@@ -88,6 +105,9 @@ public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.Foreca
         mContext = context;
         mClickHandler = dh;
         mEmptyView = emptyView;
+        // Rows are identified by date, which lets selection follow a row when rows move.
+        // Has to be set before ItemChoiceManager starts observing the adapter
+        setHasStableIds(true);
         mICM = new ItemChoiceManager(this);
         mICM.setChoiceMode(choiceMode);
     }
@@ -124,63 +144,52 @@ public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.Foreca
 
     @Override
     public void onBindViewHolder(ForecastAdapterViewHolder forecastAdapterViewHolder, int position) {
-        mCursor.moveToPosition(position);
-        int weatherId = mCursor.getInt(ForecastFragment.COL_WEATHER_CONDITION_ID);
+        // Everything shown was formatted by ForecastLoader, binding only assigns it
+        ForecastItem item = mItems.get(position);
         int defaultImage;
-        boolean useLongToday;
+        String dateText;
 
         switch (getItemViewType(position)) {
             case VIEW_TYPE_TODAY:
-                defaultImage = Utility.getArtResourceForWeatherCondition(weatherId);
-                useLongToday = true;
+                defaultImage = item.artResId;
+                dateText = item.todayText;
                 break;
             default:
-                defaultImage = Utility.getIconResourceForWeatherCondition(weatherId);
-                useLongToday = false;
+                defaultImage = item.iconResId;
+                dateText = item.dayText;
         }
 
-        if ( Utility.usingLocalGraphics(mContext) ) {
+        if ( null == item.artUrl ) {
             forecastAdapterViewHolder.mIconView.setImageResource(defaultImage);
         } else {
-            Glide.with(mContext)
-                    .load(Utility.getArtUrlForWeatherCondition(mContext, weatherId))
-                    .error(defaultImage)
+            // Only the first view of each type is measured, all views of a type have same size
+            (getItemViewType(position) == VIEW_TYPE_TODAY ? mTodayIconSize : mDayIconSize)
+                    .setView(forecastAdapterViewHolder.mIconView);
+            WeatherArt.load(Glide.with(mContext), item.artUrl, defaultImage)
                     .crossFade()
                     .into(forecastAdapterViewHolder.mIconView);
         }
 
         // this enables better animations. even if we lose state due to a device rotation,
         // the animator can use this to re-find the original view
-        ViewCompat.setTransitionName(forecastAdapterViewHolder.mIconView, "iconView" + position);
-
-        // Read date from cursor
-        long dateInMillis = mCursor.getLong(ForecastFragment.COL_WEATHER_DATE);
-
-        // Find TextView and set formatted date on it
-        forecastAdapterViewHolder.mDateView.setText(Utility.getFriendlyDayString(mContext, dateInMillis, useLongToday));
+        // Rows keep their views when other rows are inserted or removed, so the name is
+        // based on the date rather than the position
+        ViewCompat.setTransitionName(forecastAdapterViewHolder.mIconView, "iconView" + item.date);
 
-        // Read weather forecast from cursor
-        String description = Utility.getStringForWeatherCondition(mContext, weatherId);
+        forecastAdapterViewHolder.mDateView.setText(dateText);
 
-        // Find TextView and set weather forecast on it
-        forecastAdapterViewHolder.mDescriptionView.setText(description);
-        forecastAdapterViewHolder.mDescriptionView.setContentDescription(mContext.getString(R.string.a11y_forecast, description));
+        forecastAdapterViewHolder.mDescriptionView.setText(item.description);
+        forecastAdapterViewHolder.mDescriptionView.setContentDescription(item.descriptionA11y);
 
         // For accessibility, we don't want a content description for the icon field
         // because the information is repeated in the description view and the icon
         // is not individually selectable
 
-        // Read high temperature from cursor
-        double high = mCursor.getDouble(ForecastFragment.COL_WEATHER_MAX_TEMP);
-        String highString = Utility.formatTemperature(mContext, high);
-        forecastAdapterViewHolder.mHighTempView.setText(highString);
-        forecastAdapterViewHolder.mHighTempView.setContentDescription(mContext.getString(R.string.a11y_high_temp, highString));
+        forecastAdapterViewHolder.mHighTempView.setText(item.highText);
+        forecastAdapterViewHolder.mHighTempView.setContentDescription(item.highA11y);
 
-        // Read low temperature from cursor
-        double low = mCursor.getDouble(ForecastFragment.COL_WEATHER_MIN_TEMP);
-        String lowString = Utility.formatTemperature(mContext, low);
-        forecastAdapterViewHolder.mLowTempView.setText(lowString);
-        forecastAdapterViewHolder.mLowTempView.setContentDescription(mContext.getString(R.string.a11y_low_temp, lowString));
+        forecastAdapterViewHolder.mLowTempView.setText(item.lowText);
+        forecastAdapterViewHolder.mLowTempView.setContentDescription(item.lowA11y);
 
         mICM.onBindViewHolder(forecastAdapterViewHolder, position);
     }
@@ -206,20 +215,90 @@ public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.Foreca
         return (position == 0 && mUseTodayLayout) ? VIEW_TYPE_TODAY : VIEW_TYPE_FUTURE_DAY;
     }
 
+    @Override
+    public long getItemId(int position) {
+        return mItems.get(position).date;
+    }
+
     @Override
     public int getItemCount() {
-        if ( null == mCursor ) return 0;
-        return mCursor.getCount();
+        if ( null == mItems ) return 0;
+        return mItems.size();
     }
 
-    public void swapCursor(Cursor newCursor) {
-        mCursor = newCursor;
-        notifyDataSetChanged();
+    /**
+     * Shows new snapshot of the forecast. Rows are compared with the current snapshot on a
+     * background thread and only rows that were added, removed or changed are updated, so
+     * a sync that changes one day doesn't rebind the whole list.
+     *
+     * @param newItems Items to show, sorted by date, or null
+     * @param onApplied Run on the main thread once the adapter shows the new items, or null.
+     *                  Not run if the items are replaced before that
+     */
+    public void swapForecast(final List<ForecastItem> newItems, final Runnable onApplied) {
+        final int generation = ++mSwapGeneration;
+        final List<ForecastItem> oldItems = mItems;
+        if ( null == oldItems || null == newItems || oldItems.isEmpty() || newItems.isEmpty() ) {
+            // No rows to match, nothing to gain from comparing
+            applyForecast(newItems, null, onApplied);
+            return;
+        }
+        sDiffExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final ForecastDiff diff = ForecastDiff.calculate(oldItems, newItems);
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if ( generation == mSwapGeneration ) {
+                            applyForecast(newItems, diff, onApplied);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void applyForecast(List<ForecastItem> items, ForecastDiff diff, Runnable onApplied) {
+        mItems = items;
+        if ( null == diff ) {
+            notifyDataSetChanged();
+        } else {
+            diff.dispatchUpdatesTo(this);
+        }
         mEmptyView.setVisibility(getItemCount() == 0 ? View.VISIBLE : View.GONE);
+        if ( null != onApplied ) {
+            onApplied.run();
+        }
+    }
+
+    public List<ForecastItem> getForecast() {
+        return mItems;
+    }
+
+    public ForecastItem getItem(int position) {
+        return mItems.get(position);
+    }
+
+    @Override
+    public List<String> getPreloadItems(int position) {
+        if ( null == mItems || position >= mItems.size() || null == mItems.get(position).artUrl ) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(mItems.get(position).artUrl);
     }
 
-    public Cursor getCursor() {
-        return mCursor;
+    @Override
+    public GenericRequestBuilder getPreloadRequestBuilder(String artUrl) {
+        return WeatherArt.preload(Glide.with(mContext), artUrl);
+    }
+
+    @Override
+    public int[] getPreloadSize(String artUrl, int adapterPosition, int perItemPosition) {
+        // Null until a view of the type has been laid out, nothing is preloaded until then
+        return getItemViewType(adapterPosition) == VIEW_TYPE_TODAY
+                ? mTodayIconSize.getPreloadSize(artUrl, adapterPosition, perItemPosition)
+                : mDayIconSize.getPreloadSize(artUrl, adapterPosition, perItemPosition);
     }
 
     public void selectView(RecyclerView.ViewHolder viewHolder) {
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app;
+
+import android.support.v7.widget.RecyclerView;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link ForecastDiff} holds row level changes between two forecast snapshots, so the list can
+ * animate only rows that were added, removed or changed instead of rebinding everything.
+ * Rows are matched by date. Both snapshots are sorted by date, so the changes are found in a
+ * single pass over both lists and the calculation can run on any thread.
+ */
+public class ForecastDiff {
+    private static final int OP_CHANGE = 0;
+    private static final int OP_INSERT = 1;
+    private static final int OP_REMOVE = 2;
+
+    // Operations as (type, position, count) triples, in the order they have to be dispatched.
+    // Positions already account for earlier operations.
+    private int[] mOps = new int[3 * 4];
+    private int mOpCount;
+
+    private ForecastDiff() {
+    }
+
+    /**
+     * Calculates changes turning one snapshot into the other.
+     *
+     * @param oldItems Items currently shown, sorted by date
+     * @param newItems Items to show, sorted by date
+     */
+    public static ForecastDiff calculate(List<ForecastItem> oldItems, List<ForecastItem> newItems) {
+        ForecastDiff diff = new ForecastDiff();
+        int oldIndex = 0;
+        int newIndex = 0;
+        // Position in the list as it looks after the operations so far
+        int position = 0;
+        while (oldIndex < oldItems.size() || newIndex < newItems.size()) {
+            ForecastItem oldItem = oldIndex < oldItems.size() ? oldItems.get(oldIndex) : null;
+            ForecastItem newItem = newIndex < newItems.size() ? newItems.get(newIndex) : null;
+            if (newItem == null || (oldItem != null && oldItem.date < newItem.date)) {
+                // Day is gone, typically yesterday after a sync
+                diff.addOp(OP_REMOVE, position);
+                oldIndex++;
+            } else if (oldItem == null || newItem.date < oldItem.date) {
+                diff.addOp(OP_INSERT, position);
+                newIndex++;
+                position++;
+            } else {
+                if (!oldItem.hasSameContents(newItem)) {
+                    diff.addOp(OP_CHANGE, position);
+                }
+                oldIndex++;
+                newIndex++;
+                position++;
+            }
+        }
+        return diff;
+    }
+
+    /**
+     * Merges operation with the previous one when it continues the same range.
+     */
+    private void addOp(int type, int position) {
+        if (mOpCount > 0) {
+            int last = 3 * (mOpCount - 1);
+            if (mOps[last] == type) {
+                int start = mOps[last + 1];
+                int count = mOps[last + 2];
+                // Removed rows all leave at the same position, other ranges grow forward
+                if ((type == OP_REMOVE && position == start)
+                        || (type != OP_REMOVE && position == start + count)) {
+                    mOps[last + 2]++;
+                    return;
+                }
+            }
+        }
+        if (3 * (mOpCount + 1) > mOps.length) {
+            mOps = Arrays.copyOf(mOps, mOps.length * 2);
+        }
+        mOps[3 * mOpCount] = type;
+        mOps[3 * mOpCount + 1] = position;
+        mOps[3 * mOpCount + 2] = 1;
+        mOpCount++;
+    }
+
+    /**
+     * Notifies adapter of the changes. Has to be called on the main thread, right after the
+     * adapter has switched to the new snapshot.
+     *
+     * @param adapter Adapter showing the new snapshot
+     */
+    public void dispatchUpdatesTo(RecyclerView.Adapter adapter) {
+        for (int op = 0; op < mOpCount; op++) {
+            int position = mOps[3 * op + 1];
+            int count = mOps[3 * op + 2];
+            switch (mOps[3 * op]) {
+                case OP_CHANGE:
+                    adapter.notifyItemRangeChanged(position, count);
+                    break;
+                case OP_INSERT:
+                    adapter.notifyItemRangeInserted(position, count);
+                    break;
+                default:
+                    adapter.notifyItemRangeRemoved(position, count);
+            }
+        }
+    }
+
+    /**
+     * Returns number of dispatched notifications.
+     */
+    public int getOperationCount() {
+        return mOpCount;
+    }
+
+    /**
+     * Returns true if the snapshots show the same rows.
+     */
+    public boolean isEmpty() {
+        return mOpCount == 0;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.text.TextUtils;
+
+/**
+ * {@link ForecastItem} is a single row of the forecast list with every text already formatted,
+ * so binding it to a view only assigns values. Items are built by {@link ForecastLoader} on a
+ * background thread and never change afterwards.
+ */
+public class ForecastItem {
+    public final long date;
+    public final int weatherId;
+    // Day name, e.g. "Tomorrow"
+    public final String dayText;
+    // Long form used by the "today" layout, e.g. "Today, June 24". Only set for the first item
+    public final String todayText;
+    public final String description;
+    public final String descriptionA11y;
+    public final String highText;
+    public final String highA11y;
+    public final String lowText;
+    public final String lowA11y;
+    public final int iconResId;
+    public final int artResId;
+    // Remote art, null when local graphics are used
+    public final String artUrl;
+    public final String coordLat;
+    public final String coordLong;
+
+    private ForecastItem(Context context, Cursor cursor, boolean first, boolean useLocalGraphics) {
+        date = cursor.getLong(ForecastFragment.COL_WEATHER_DATE);
+        weatherId = cursor.getInt(ForecastFragment.COL_WEATHER_CONDITION_ID);
+
+        dayText = Utility.getFriendlyDayString(context, date, false);
+        todayText = first ? Utility.getFriendlyDayString(context, date, true) : null;
+
+        description = Utility.getStringForWeatherCondition(context, weatherId);
+        descriptionA11y = context.getString(R.string.a11y_forecast, description);
+
+        highText = Utility.formatTemperature(context,
+                cursor.getDouble(ForecastFragment.COL_WEATHER_MAX_TEMP));
+        highA11y = context.getString(R.string.a11y_high_temp, highText);
+        lowText = Utility.formatTemperature(context,
+                cursor.getDouble(ForecastFragment.COL_WEATHER_MIN_TEMP));
+        lowA11y = context.getString(R.string.a11y_low_temp, lowText);
+
+        iconResId = Utility.getIconResourceForWeatherCondition(weatherId);
+        artResId = Utility.getArtResourceForWeatherCondition(weatherId);
+        artUrl = useLocalGraphics ? null
+                : Utility.getArtUrlForWeatherCondition(context, weatherId);
+
+        coordLat = cursor.getString(ForecastFragment.COL_COORD_LAT);
+        coordLong = cursor.getString(ForecastFragment.COL_COORD_LONG);
+    }
+
+    /**
+     * Returns true if both items show the same texts and images, so a row bound to one
+     * doesn't need to be bound to the other.
+     *
+     * @param other Item of the same date
+     */
+    public boolean hasSameContents(ForecastItem other) {
+        return date == other.date
+                && weatherId == other.weatherId
+                && iconResId == other.iconResId
+                && artResId == other.artResId
+                && TextUtils.equals(dayText, other.dayText)
+                && TextUtils.equals(todayText, other.todayText)
+                && TextUtils.equals(description, other.description)
+                && TextUtils.equals(descriptionA11y, other.descriptionA11y)
+                && TextUtils.equals(highText, other.highText)
+                && TextUtils.equals(highA11y, other.highA11y)
+                && TextUtils.equals(lowText, other.lowText)
+                && TextUtils.equals(lowA11y, other.lowA11y)
+                && TextUtils.equals(artUrl, other.artUrl);
+    }
+
+    /**
+     * Builds item from the current row of a cursor with {@link ForecastFragment}'s columns.
+     *
+     * @param context Context to use for resource localization
+     * @param cursor Cursor moved to the row
+     * @param first true for the first row, which may be shown with the "today" layout
+     * @param useLocalGraphics true if art is not loaded from the network
+     */
+    public static ForecastItem fromCursor(Context context, Cursor cursor, boolean first,
+                                          boolean useLocalGraphics) {
+        return new ForecastItem(context, cursor, first, useLocalGraphics);
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.support.v4.content.AsyncTaskLoader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link ForecastLoader} queries the forecast like a {@link android.support.v4.content.CursorLoader}
+ * and turns the rows into {@link ForecastItem}s on its background thread, so the list never
+ * formats dates, conditions or temperatures while scrolling. Loads again whenever the weather
+ * data or settings it depends on change.
+ */
+public class ForecastLoader extends AsyncTaskLoader<List<ForecastItem>> {
+
+    private final ForceLoadContentObserver mObserver = new ForceLoadContentObserver();
+    private final Uri mUri;
+    private final String[] mProjection;
+    private final String mSortOrder;
+    private boolean mObserverRegistered;
+
+    private List<ForecastItem> mItems;
+
+    public ForecastLoader(Context context, Uri uri, String[] projection, String sortOrder) {
+        super(context);
+        mUri = uri;
+        mProjection = projection;
+        mSortOrder = sortOrder;
+    }
+
+    @Override
+    public List<ForecastItem> loadInBackground() {
+        Cursor cursor = getContext().getContentResolver().query(mUri, mProjection, null, null,
+                mSortOrder);
+        if (cursor == null) {
+            return Collections.emptyList();
+        }
+        try {
+            return buildItems(getContext(), cursor);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Builds immutable list of items from all rows of a cursor with {@link ForecastFragment}'s
+     * columns.
+     *
+     * @param context Context to use for resource localization
+     * @param cursor Forecast cursor
+     */
+    public static List<ForecastItem> buildItems(Context context, Cursor cursor) {
+        // Preferences are read once per load, not for every row
+        boolean useLocalGraphics = Utility.usingLocalGraphics(context);
+        List<ForecastItem> items = new ArrayList<>(cursor.getCount());
+        cursor.moveToPosition(-1);
+        while (cursor.moveToNext()) {
+            items.add(ForecastItem.fromCursor(context, cursor, items.isEmpty(),
+                    useLocalGraphics));
+        }
+        return Collections.unmodifiableList(items);
+    }
+
+    @Override
+    public void deliverResult(List<ForecastItem> items) {
+        if (isReset()) {
+            return;
+        }
+        mItems = items;
+        if (isStarted()) {
+            super.deliverResult(items);
+        }
+    }
+
+    @Override
+    protected void onStartLoading() {
+        if (!mObserverRegistered) {
+            // Same notifications a CursorLoader's cursor would receive
+            getContext().getContentResolver().registerContentObserver(mUri, true, mObserver);
+            mObserverRegistered = true;
+        }
+        if (mItems != null) {
+            deliverResult(mItems);
+        }
+        if (takeContentChanged() || mItems == null) {
+            forceLoad();
+        }
+    }
+
+    @Override
+    protected void onStopLoading() {
+        cancelLoad();
+    }
+
+    @Override
+    protected void onReset() {
+        super.onReset();
+        onStopLoading();
+        mItems = null;
+        if (mObserverRegistered) {
+            getContext().getContentResolver().unregisterContentObserver(mObserver);
+            mObserverRegistered = false;
+        }
+    }
+}
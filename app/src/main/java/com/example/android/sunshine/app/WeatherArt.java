@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.app;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.bumptech.glide.DrawableRequestBuilder;
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.load.resource.drawable.GlideDrawable;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.target.Target;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link WeatherArt} builds the Glide requests for remote weather art, so images shown, preloaded
+ * and prewarmed share cache keys. The art set is small, so after each sync the art for the
+ * synced conditions is downloaded to the disk cache ahead of time. Counts how often shown art
+ * was already in memory, to tell whether preloading keeps up with scrolling.
+ */
+public class WeatherArt {
+    public static final String LOG_TAG = WeatherArt.class.getSimpleName();
+
+    // Longest wait for a single art download when prewarming
+    private static final long PREWARM_TIMEOUT_SECONDS = 15;
+    // Downloads prewarmed art one image at a time, off the sync thread
+    private static final ExecutorService sPrewarmExecutor = Executors.newSingleThreadExecutor();
+
+    private static final AtomicInteger sMemoryHits = new AtomicInteger();
+    private static final AtomicInteger sMisses = new AtomicInteger();
+    private static final AtomicInteger sFailures = new AtomicInteger();
+    private static final AtomicInteger sPreloads = new AtomicInteger();
+    private static final AtomicInteger sPrewarmed = new AtomicInteger();
+
+    private static final RequestListener<String, GlideDrawable> sStatsListener =
+            new RequestListener<String, GlideDrawable>() {
+                @Override
+                public boolean onException(Exception e, String model,
+                                           Target<GlideDrawable> target, boolean isFirstResource) {
+                    sFailures.incrementAndGet();
+                    return false;
+                }
+
+                @Override
+                public boolean onResourceReady(GlideDrawable resource, String model,
+                                               Target<GlideDrawable> target,
+                                               boolean isFromMemoryCache, boolean isFirstResource) {
+                    if (isFromMemoryCache) {
+                        sMemoryHits.incrementAndGet();
+                    } else {
+                        sMisses.incrementAndGet();
+                    }
+                    return false;
+                }
+            };
+
+    private WeatherArt() {
+    }
+
+    /**
+     * Returns request for art that is about to be shown.
+     *
+     * @param requestManager Glide request manager of the calling component
+     * @param artUrl Url of the art
+     * @param errorResId Local art shown if the url can't be loaded
+     */
+    public static DrawableRequestBuilder<String> load(RequestManager requestManager,
+                                                      String artUrl, int errorResId) {
+        return request(requestManager, artUrl)
+                .error(errorResId)
+                .listener(sStatsListener);
+    }
+
+    /**
+     * Returns request loading art into the memory cache before it is shown. Has to be loaded
+     * at the size of the view the art will be shown in, or it won't be used.
+     *
+     * @param requestManager Glide request manager of the calling component
+     * @param artUrl Url of the art
+     */
+    public static DrawableRequestBuilder<String> preload(RequestManager requestManager,
+                                                         String artUrl) {
+        sPreloads.incrementAndGet();
+        return request(requestManager, artUrl);
+    }
+
+    private static DrawableRequestBuilder<String> request(RequestManager requestManager,
+                                                          String artUrl) {
+        // Source images are kept on disk so prewarmed art serves every size. The transformation
+        // is set explicitly, so requests into views and preloads have the same cache key
+        return requestManager.load(artUrl)
+                .diskCacheStrategy(DiskCacheStrategy.ALL)
+                .fitCenter();
+    }
+
+    /**
+     * Downloads art of the given weather conditions into the disk cache on a background thread.
+     * Returns right away, each download gives up after {@link #PREWARM_TIMEOUT_SECONDS}.
+     *
+     * @param context Context to use for the art pack setting
+     * @param weatherIds Weather condition ids from OpenWeatherMap API response
+     */
+    public static void prewarm(Context context, Collection<Integer> weatherIds) {
+        if (Utility.usingLocalGraphics(context)) {
+            return;
+        }
+        // Many conditions share the same art
+        final Set<String> artUrls = new LinkedHashSet<>();
+        for (int weatherId : weatherIds) {
+            String artUrl = Utility.getArtUrlForWeatherCondition(context, weatherId);
+            if (null != artUrl) {
+                artUrls.add(artUrl);
+            }
+        }
+
+        final Context appContext = context.getApplicationContext();
+        sPrewarmExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                int downloaded = 0;
+                for (String artUrl : artUrls) {
+                    try {
+                        Glide.with(appContext)
+                                .load(artUrl)
+                                .downloadOnly(Target.SIZE_ORIGINAL, Target.SIZE_ORIGINAL)
+                                .get(PREWARM_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                        downloaded++;
+                    } catch (InterruptedException | ExecutionException | TimeoutException e) {
+                        Log.e(LOG_TAG, "Error prewarming art from " + artUrl, e);
+                    }
+                }
+                sPrewarmed.addAndGet(downloaded);
+                Log.d(LOG_TAG, "Prewarmed " + downloaded + " of " + artUrls.size()
+                        + " weather art images");
+            }
+        });
+    }
+
+    /**
+     * Returns summary of shown art cache hits, preloads and prewarmed images, for debugging.
+     */
+    public static String getStats() {
+        int hits = sMemoryHits.get();
+        int shown = hits + sMisses.get();
+        return "shown " + shown + ", memory hits " + hits
+                + (shown > 0 ? " (" + (100 * hits / shown) + "%)" : "")
+                + ", failed " + sFailures.get() + ", preloads " + sPreloads.get()
+                + ", prewarmed " + sPrewarmed.get();
+    }
+}
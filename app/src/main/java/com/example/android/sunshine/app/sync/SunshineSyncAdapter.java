@@ -35,15 +35,20 @@ import com.example.android.sunshine.app.BuildConfig;
 import com.example.android.sunshine.app.MainActivity;
 import com.example.android.sunshine.app.R;
 import com.example.android.sunshine.app.Utility;
+import com.example.android.sunshine.app.WeatherArt;
 import com.example.android.sunshine.app.data.WeatherContract;
 import com.example.android.sunshine.app.muzei.WeatherMuzeiSource;
 import com.example.android.sunshine.shared_resources.Constants;
+import com.example.android.sunshine.shared_resources.DataItemPriority;
+import com.example.android.sunshine.shared_resources.ForecastDay;
+import com.example.android.sunshine.shared_resources.WearForecastTracker;
+import com.example.android.sunshine.shared_resources.datalayer.DataLayerTransport;
+import com.example.android.sunshine.shared_resources.datalayer.GmsDataLayerTransport;
 import com.google.android.gms.common.ConnectionResult;
 import com.google.android.gms.common.api.GoogleApiClient;
 import com.google.android.gms.wearable.Asset;
-import com.google.android.gms.wearable.DataApi;
+import com.google.android.gms.wearable.DataMap;
 import com.google.android.gms.wearable.PutDataMapRequest;
-import com.google.android.gms.wearable.PutDataRequest;
 import com.google.android.gms.wearable.Wearable;
 
 import org.json.JSONArray;
@@ -58,12 +63,17 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.Vector;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter {
     public final String TAG = SunshineSyncAdapter.class.getSimpleName();
+    private static final String LOG_TAG = SunshineSyncAdapter.class.getSimpleName();
     public static final String ACTION_DATA_UPDATED =
             "com.example.android.sunshine.app.ACTION_DATA_UPDATED";
     // Interval at which to sync with the weather, in seconds.
@@ -81,7 +91,8 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter {
             WeatherContract.WeatherEntry.COLUMN_HUMIDITY,
             WeatherContract.WeatherEntry.COLUMN_PRESSURE,
             WeatherContract.WeatherEntry.COLUMN_WIND_SPEED,
-            WeatherContract.WeatherEntry.COLUMN_DEGREES
+            WeatherContract.WeatherEntry.COLUMN_DEGREES,
+            WeatherContract.WeatherEntry.COLUMN_DATE
     };
 
     // these indices must match the projection
@@ -93,6 +104,31 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter {
     private static final int INDEX_PRESSURE = 5;
     private static final int INDEX_WIND_SPEED = 6;
     private static final int INDEX_DEGREES = 7;
+    private static final int INDEX_DATE = 8;
+
+    // Number of days in the rolling forecast kept on the wearable
+    private static final int WEAR_FORECAST_DAYS = 7;
+
+    private static final String[] WEAR_FORECAST_PROJECTION = new String[]{
+            WeatherContract.WeatherEntry.COLUMN_DATE,
+            WeatherContract.WeatherEntry.COLUMN_WEATHER_ID,
+            WeatherContract.WeatherEntry.COLUMN_MAX_TEMP,
+            WeatherContract.WeatherEntry.COLUMN_MIN_TEMP,
+            WeatherContract.WeatherEntry.COLUMN_HUMIDITY
+    };
+
+    // these indices must match the projection
+    private static final int INDEX_FORECAST_DATE = 0;
+    private static final int INDEX_FORECAST_WEATHER_ID = 1;
+    private static final int INDEX_FORECAST_MAX_TEMP = 2;
+    private static final int INDEX_FORECAST_MIN_TEMP = 3;
+    private static final int INDEX_FORECAST_HUMIDITY = 4;
+
+    // Set once current weather DataItems have been put for the first time
+    private static final String WEAR_WEATHER_PUT_KEY = "wear_weather_put";
+
+    // True while performing a sync requested by the user or the wearable
+    private boolean mUserRequestedSync;
 
     @Retention(RetentionPolicy.SOURCE)
     @IntDef({LOCATION_STATUS_OK, LOCATION_STATUS_SERVER_DOWN, LOCATION_STATUS_SERVER_INVALID, LOCATION_STATUS_UNKNOWN, LOCATION_STATUS_INVALID})
@@ -112,6 +148,7 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter {
     @Override
     public void onPerformSync(Account account, Bundle extras, String authority, ContentProviderClient provider, SyncResult syncResult) {
         Log.d(TAG, "Starting sync");
+        mUserRequestedSync = extras.getBoolean(ContentResolver.SYNC_EXTRAS_MANUAL, false);
 
         // We no longer need just the location String, but also potentially the latitude and
         // longitude, in case we are syncing based on a new Place Picker API result.
@@ -393,6 +430,9 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter {
             }
             Log.d(TAG, "Sync Complete. " + cVVector.size() + " Inserted");
             setLocationStatus(getContext(), LOCATION_STATUS_OK);
+            if (cVVector.size() > 0) {
+                prewarmWeatherArt(cVVector);
+            }
 
         } catch (JSONException e) {
             Log.e(TAG, e.getMessage(), e);
@@ -401,6 +441,18 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter {
         }
     }
 
+    /**
+     * Starts downloading art of the synced weather conditions, so the forecast list and detail
+     * don't wait for the network when they show it. Doesn't block the sync.
+     */
+    private void prewarmWeatherArt(Vector<ContentValues> cVVector) {
+        Set<Integer> weatherIds = new HashSet<Integer>();
+        for (ContentValues weatherValues : cVVector) {
+            weatherIds.add(weatherValues.getAsInteger(WeatherContract.WeatherEntry.COLUMN_WEATHER_ID));
+        }
+        WeatherArt.prewarm(getContext(), weatherIds);
+    }
+
     private void updateWidgets() {
         Context context = getContext();
         // Setting the package ensures that only components in our app will receive the broadcast
@@ -594,59 +646,58 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter {
             double high = cursor.getDouble(INDEX_MAX_TEMP);
             double low = cursor.getDouble(INDEX_MIN_TEMP);
             double humidity = cursor.getDouble(INDEX_HUMIDITY);
+            long date = cursor.getLong(INDEX_DATE);
 
             int iconId = Utility.getIconResourceForWeatherCondition(weatherId);
             Bitmap bitmap = BitmapFactory.decodeResource(context.getResources(), iconId);
             Asset iconAsset = Utility.createAssetFromBitmap(bitmap);
 
             if (connectionResult.isSuccess() && googleApiClient.isConnected()) {
-                PutDataMapRequest tempDataMap =
-                        PutDataMapRequest.create(Constants.WEATHER_DATA_TEMP_PATH);
-                PutDataMapRequest humidityDataMap =
-                        PutDataMapRequest.create(Constants.WEATHER_DATA_HUMIDITY_PATH);
-                PutDataMapRequest summaryDataMap =
-                        PutDataMapRequest.create(Constants.WEATHER_DATA_SUMMARY_PATH);
+                DataLayerTransport transport = new GmsDataLayerTransport(googleApiClient);
+                DataMap tempDataMap = new DataMap();
+                DataMap humidityDataMap = new DataMap();
+                DataMap summaryDataMap = new DataMap();
                 // Store high temperature value
-                tempDataMap.getDataMap().putString(Constants.HIGH_KEY,
-                        Utility.formatTemperature(context, high));
+                tempDataMap.putString(Constants.HIGH_KEY, Utility.formatTemperature(context, high));
                 // Store low temperature value
-                tempDataMap.getDataMap().putString(Constants.LOW_KEY,
-                        Utility.formatTemperature(context, low));
+                tempDataMap.putString(Constants.LOW_KEY, Utility.formatTemperature(context, low));
                 // Store humidity value
-                humidityDataMap.getDataMap().putDouble(Constants.HUMIDITY_KEY, humidity);
+                humidityDataMap.putDouble(Constants.HUMIDITY_KEY, humidity);
                 // Store weather icon asset
-                summaryDataMap.getDataMap().putAsset(Constants.SUMMARY_KEY, iconAsset);
+                summaryDataMap.putAsset(Constants.SUMMARY_KEY, iconAsset);
+                // Store normalized date the values belong to, so the wearable can tell them
+                // apart from the stored forecast once the day is over
+                tempDataMap.putLong(Constants.DATE_KEY, date);
+                humidityDataMap.putLong(Constants.DATE_KEY, date);
+                summaryDataMap.putLong(Constants.DATE_KEY, date);
 
                 // TODO: Remove
-                tempDataMap.getDataMap().putLong("Time", System.currentTimeMillis());
-                humidityDataMap.getDataMap().putLong("Time", System.currentTimeMillis());
-                summaryDataMap.getDataMap().putLong("Time", System.currentTimeMillis());
-
-                PutDataRequest tempRequest = tempDataMap.asPutDataRequest();
-                PutDataRequest humidityRequest = humidityDataMap.asPutDataRequest();
-                PutDataRequest summaryRequest = summaryDataMap.asPutDataRequest();
-
-                // Send temperature data to wearable
-                DataApi.DataItemResult tempResult =
-                        Wearable.DataApi.putDataItem(googleApiClient, tempRequest).await();
-                DataApi.DataItemResult humidityResult =
-                        Wearable.DataApi.putDataItem(googleApiClient, humidityRequest).await();
-                DataApi.DataItemResult summaryResult =
-                        Wearable.DataApi.putDataItem(googleApiClient, summaryRequest).await();
-
-                if (!tempResult.getStatus().isSuccess()) {
-                    Log.e(TAG, String.format(Constants.GOOGLE_API_CLIENT_ERROR,
-                            tempResult.getStatus().getStatusCode()));
-                }
-                if (!humidityResult.getStatus().isSuccess()) {
-                    Log.e(TAG, String.format(Constants.GOOGLE_API_CLIENT_ERROR,
-                            humidityResult.getStatus().getStatusCode()));
-                }
-                if (!summaryResult.getStatus().isSuccess()) {
-                    Log.e(TAG, String.format(Constants.GOOGLE_API_CLIENT_ERROR,
-                            summaryResult.getStatus().getStatusCode()));
+                tempDataMap.putLong("Time", System.currentTimeMillis());
+                humidityDataMap.putLong("Time", System.currentTimeMillis());
+                summaryDataMap.putLong("Time", System.currentTimeMillis());
+
+                // Sync immediately only when the user is waiting for this data, routine
+                // refreshes are left for the Data Layer to batch
+                SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
+                boolean userWaiting = mUserRequestedSync
+                        || !prefs.getBoolean(WEAR_WEATHER_PUT_KEY, false);
+                boolean urgent = DataItemPriority.forCurrentWeather(weatherId, userWaiting)
+                        == DataItemPriority.URGENT;
+
+                // Send weather data to wearable
+                boolean tempPut = transport.putDataItem(Constants.WEATHER_DATA_TEMP_PATH,
+                        tempDataMap, urgent);
+                boolean humidityPut = transport.putDataItem(Constants.WEATHER_DATA_HUMIDITY_PATH,
+                        humidityDataMap, urgent);
+                boolean summaryPut = transport.putDataItem(Constants.WEATHER_DATA_SUMMARY_PATH,
+                        summaryDataMap, urgent);
+                if (tempPut && humidityPut && summaryPut) {
+                    prefs.edit().putBoolean(WEAR_WEATHER_PUT_KEY, true).apply();
                 }
 
+                // Send multi-day forecast (only days changed since last acknowledged version)
+                putWearForecast(context, transport, mUserRequestedSync);
+
             } else {
                 Log.e(TAG, String.format(Constants.GOOGLE_API_CONNECTION_ERROR,
                         connectionResult.getErrorCode()));
@@ -656,6 +707,75 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter {
         cursor.close();
     }
 
+    /**
+     * Sends multi-day forecast from the local database to the wearable, without fetching
+     * weather from the network. Used when the wearable could not apply a forecast delta, so the
+     * request is urgent. Blocks, so it has to be called on a background thread.
+     *
+     * @param context Application's context
+     */
+    public static void resendWearForecast(Context context) {
+        GoogleApiClient googleApiClient = new GoogleApiClient.Builder(context)
+                .addApi(Wearable.API)
+                .build();
+        ConnectionResult connectionResult = googleApiClient.blockingConnect(
+                Constants.GOOGLE_API_CLIENT_TIMEOUT, TimeUnit.SECONDS);
+
+        if (connectionResult.isSuccess() && googleApiClient.isConnected()) {
+            putWearForecast(context, new GmsDataLayerTransport(googleApiClient), true);
+        } else {
+            Log.e(LOG_TAG, String.format(Constants.GOOGLE_API_CONNECTION_ERROR,
+                    connectionResult.getErrorCode()));
+        }
+        googleApiClient.disconnect();
+    }
+
+    /**
+     * Puts multi-day forecast DataItem if the wearable doesn't have the current forecast yet.
+     *
+     * @param context     Application's context
+     * @param transport   Transport connected to the wearable
+     * @param userWaiting true if the user or the wearable is waiting for the forecast
+     */
+    private static void putWearForecast(Context context, DataLayerTransport transport,
+                                        boolean userWaiting) {
+        PutDataMapRequest forecastRequest = WearForecastTracker.createRequest(context,
+                queryWearForecast(context, Utility.getPreferredLocation(context)), userWaiting);
+        if (forecastRequest != null) {
+            transport.putDataItem(forecastRequest.getUri().getPath(),
+                    forecastRequest.getDataMap(), forecastRequest.isUrgent());
+        }
+    }
+
+    /**
+     * Helper method that reads rolling forecast to be kept on the wearable.
+     *
+     * @param context       Application's context
+     * @param locationQuery The location string used to request updates from the server.
+     * @return Forecast days ordered by date
+     */
+    private static List<ForecastDay> queryWearForecast(Context context, String locationQuery) {
+        List<ForecastDay> days = new ArrayList<>(WEAR_FORECAST_DAYS);
+
+        Uri forecastUri = WeatherContract.WeatherEntry.buildWeatherLocationWithStartDate(
+                locationQuery, System.currentTimeMillis());
+        Cursor cursor = context.getContentResolver().query(forecastUri, WEAR_FORECAST_PROJECTION,
+                null, null, WeatherContract.WeatherEntry.COLUMN_DATE + " ASC");
+
+        if (cursor != null) {
+            while (cursor.moveToNext() && days.size() < WEAR_FORECAST_DAYS) {
+                days.add(new ForecastDay(
+                        cursor.getLong(INDEX_FORECAST_DATE),
+                        cursor.getInt(INDEX_FORECAST_WEATHER_ID),
+                        Utility.formatTemperature(context, cursor.getDouble(INDEX_FORECAST_MAX_TEMP)),
+                        Utility.formatTemperature(context, cursor.getDouble(INDEX_FORECAST_MIN_TEMP)),
+                        cursor.getDouble(INDEX_FORECAST_HUMIDITY)));
+            }
+            cursor.close();
+        }
+        return days;
+    }
+
     /**
      * Helper method to handle insertion of a new location in the weather database.
      *
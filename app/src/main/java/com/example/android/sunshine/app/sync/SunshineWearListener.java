@@ -1,17 +1,23 @@
 package com.example.android.sunshine.app.sync;
 
 import android.content.Intent;
+import android.util.Log;
 
 import com.example.android.sunshine.app.MainActivity;
 import com.example.android.sunshine.shared_resources.Constants;
+import com.example.android.sunshine.shared_resources.WearForecastTracker;
 import com.google.android.gms.wearable.MessageEvent;
 import com.google.android.gms.wearable.WearableListenerService;
 
+import java.nio.charset.Charset;
+
 /**
  * Simple listener service that receives messages from wearable device.
  */
 
 public class SunshineWearListener extends WearableListenerService {
+    private static final String LOG_TAG = SunshineWearListener.class.getSimpleName();
+
     @Override
     public void onMessageReceived(MessageEvent messageEvent) {
         // Launch Sunshine mobile app
@@ -24,5 +30,21 @@ public class SunshineWearListener extends WearableListenerService {
         if (messageEvent.getPath().equals(Constants.SYNC_SUNSHINE_MESSAGE_PATH)) {
             SunshineSyncAdapter.syncImmediately(getApplicationContext());
         }
+        // Wearable stored forecast version
+        if (messageEvent.getPath().equals(Constants.FORECAST_ACK_MESSAGE_PATH)) {
+            int version;
+            try {
+                version = Integer.parseInt(
+                        new String(messageEvent.getData(), Charset.forName("UTF-8")));
+            } catch (NumberFormatException e) {
+                Log.w(LOG_TAG, "Malformed forecast acknowledgement", e);
+                return;
+            }
+            if (WearForecastTracker.onAcknowledged(getApplicationContext(), version)) {
+                // Wearable could not apply the delta, resend the whole forecast. The phone
+                // already has it, so there is no need to fetch weather again
+                SunshineSyncAdapter.resendWearForecast(getApplicationContext());
+            }
+        }
     }
 }
@@ -24,10 +24,12 @@ public class Constants {
     public static final String WEATHER_DATA_TEMP_PATH = "/weather_update/temperature";
     public static final String WEATHER_DATA_HUMIDITY_PATH = "/weather_update/humidity";
     public static final String WEATHER_DATA_SUMMARY_PATH = "/weather_update/summary";
+    public static final String WEATHER_DATA_FORECAST_PATH = "/weather_update/forecast";
 
     // Paths to messages sent through DataLayer API
     public static final String LAUNCH_SUNSHINE_MESSAGE_PATH = "/launch_sunshine";
     public static final String SYNC_SUNSHINE_MESSAGE_PATH = "/sync_sunshine";
+    public static final String FORECAST_ACK_MESSAGE_PATH = "/forecast_ack";
 
     // Keys used to store weather data in DataLayer API
     public static final String HIGH_KEY = "com.example.android.sunshine.app.sync.key.high_temp";
@@ -35,6 +37,24 @@ public class Constants {
     public static final String HUMIDITY_KEY = "com.example.android.sunshine.app.sync.key.humidity";
     public static final String SUMMARY_KEY = "com.example.android.sunshine.app.sync.key.summary";
 
+    // Keys used to store multi-day forecast in DataLayer API
+    public static final String FORECAST_VERSION_KEY =
+            "com.example.android.sunshine.app.sync.key.forecast_version";
+    public static final String FORECAST_BASE_VERSION_KEY =
+            "com.example.android.sunshine.app.sync.key.forecast_base_version";
+    public static final String FORECAST_START_DATE_KEY =
+            "com.example.android.sunshine.app.sync.key.forecast_start_date";
+    public static final String FORECAST_END_DATE_KEY =
+            "com.example.android.sunshine.app.sync.key.forecast_end_date";
+    public static final String FORECAST_DAYS_KEY =
+            "com.example.android.sunshine.app.sync.key.forecast_days";
+    public static final String DATE_KEY = "com.example.android.sunshine.app.sync.key.date";
+    public static final String WEATHER_ID_KEY =
+            "com.example.android.sunshine.app.sync.key.weather_id";
+
+    // Forecast version used when there is no acknowledged forecast (full transfer required)
+    public static final int NO_FORECAST_VERSION = -1;
+
     // GoogleApiClient connection timeout (10 seconds)
     public static final int GOOGLE_API_CLIENT_TIMEOUT = 10;
 
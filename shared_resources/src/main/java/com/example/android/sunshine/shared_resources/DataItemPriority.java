@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.shared_resources;
+
+import android.support.annotation.IntDef;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Delivery priority of weather DataItems.
+ *
+ * URGENT items are put with setUrgent() and synchronized immediately. NORMAL items are left to
+ * the Data Layer, which batches them with other traffic. DEFERRED is reserved for history and
+ * background extras that may wait for a scheduled flush; weather the watch face shows is never
+ * deferred.
+ */
+public class DataItemPriority {
+
+    private DataItemPriority() {}
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({URGENT, NORMAL, DEFERRED})
+    public @interface Priority {
+    }
+
+    public static final int URGENT = 0;
+    public static final int NORMAL = 1;
+    public static final int DEFERRED = 2;
+
+    /**
+     * Returns priority of current weather conditions.
+     *
+     * @param weatherId   Weather condition id from OpenWeatherMap
+     * @param userWaiting true if the sync was requested by the user or the wearable has never
+     *                    received current weather
+     */
+    @Priority
+    public static int forCurrentWeather(int weatherId, boolean userWaiting) {
+        return userWaiting || isSevereWeather(weatherId) ? URGENT : NORMAL;
+    }
+
+    /**
+     * Returns priority of forecast for upcoming days.
+     *
+     * @param weatherIds  Weather condition ids of the days that changed
+     * @param userWaiting true if the sync was requested by the user or the wearable is waiting
+     *                    for its first (or a full) forecast
+     */
+    @Priority
+    public static int forForecast(int[] weatherIds, boolean userWaiting) {
+        if (userWaiting) {
+            return URGENT;
+        }
+        for (int weatherId : weatherIds) {
+            if (isSevereWeather(weatherId)) {
+                return URGENT;
+            }
+        }
+        return NORMAL;
+    }
+
+    /**
+     * Returns true for conditions the user should learn about without delay.
+     * Based on weather codes found at:
+     * http://bugs.openweathermap.org/projects/api/wiki/Weather_Condition_Codes
+     *
+     * @param weatherId Weather condition id from OpenWeatherMap
+     */
+    public static boolean isSevereWeather(int weatherId) {
+        return (weatherId >= 200 && weatherId <= 232)   // thunderstorm
+                || (weatherId >= 502 && weatherId <= 504)   // heavy rain
+                || weatherId == 511                          // freezing rain
+                || weatherId == 602 || weatherId == 622     // heavy snow
+                || weatherId == 781                          // tornado
+                || (weatherId >= 900 && weatherId <= 906)   // extreme
+                || (weatherId >= 958 && weatherId <= 962);  // gale to hurricane
+    }
+}
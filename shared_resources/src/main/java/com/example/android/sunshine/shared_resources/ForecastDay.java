@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.shared_resources;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Single day of the forecast exchanged between handheld and wearable devices **/
+public class ForecastDay {
+
+    private static final String JSON_DATE = "date";
+    private static final String JSON_WEATHER_ID = "weather_id";
+    private static final String JSON_HIGH = "high";
+    private static final String JSON_LOW = "low";
+    private static final String JSON_HUMIDITY = "humidity";
+
+    private final long mDate;
+    private final int mWeatherId;
+    private final String mHigh;
+    private final String mLow;
+    private final double mHumidity;
+
+    public ForecastDay(long date, int weatherId, String high, String low, double humidity) {
+        mDate = date;
+        mWeatherId = weatherId;
+        mHigh = high;
+        mLow = low;
+        mHumidity = humidity;
+    }
+
+    /** Normalized date (UTC midnight) in milliseconds **/
+    public long getDate() {
+        return mDate;
+    }
+
+    public int getWeatherId() {
+        return mWeatherId;
+    }
+
+    /** Formatted high temperature **/
+    public String getHigh() {
+        return mHigh;
+    }
+
+    /** Formatted low temperature **/
+    public String getLow() {
+        return mLow;
+    }
+
+    public double getHumidity() {
+        return mHumidity;
+    }
+
+    public JSONObject toJson() throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put(JSON_DATE, mDate);
+        json.put(JSON_WEATHER_ID, mWeatherId);
+        json.put(JSON_HIGH, mHigh);
+        json.put(JSON_LOW, mLow);
+        json.put(JSON_HUMIDITY, mHumidity);
+        return json;
+    }
+
+    public static ForecastDay fromJson(JSONObject json) throws JSONException {
+        return new ForecastDay(
+                json.getLong(JSON_DATE),
+                json.getInt(JSON_WEATHER_ID),
+                json.getString(JSON_HIGH),
+                json.getString(JSON_LOW),
+                json.getDouble(JSON_HUMIDITY));
+    }
+
+    /**
+     * Serializes list of days so it can be kept in SharedPreferences.
+     * @param days Days to serialize
+     * @return JSON array string
+     */
+    public static String toJsonArray(List<ForecastDay> days) throws JSONException {
+        JSONArray array = new JSONArray();
+        for (ForecastDay day : days) {
+            array.put(day.toJson());
+        }
+        return array.toString();
+    }
+
+    /**
+     * Restores list of days serialized with {@link #toJsonArray(List)}.
+     * @param jsonArray JSON array string, may be null
+     * @return List of days, empty if there is nothing to restore
+     */
+    public static List<ForecastDay> fromJsonArray(String jsonArray) throws JSONException {
+        List<ForecastDay> days = new ArrayList<>();
+        if (jsonArray != null) {
+            JSONArray array = new JSONArray(jsonArray);
+            for (int i = 0; i < array.length(); i++) {
+                days.add(fromJson(array.getJSONObject(i)));
+            }
+        }
+        return days;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ForecastDay)) return false;
+        ForecastDay that = (ForecastDay) o;
+        return mDate == that.mDate
+                && mWeatherId == that.mWeatherId
+                && Double.compare(that.mHumidity, mHumidity) == 0
+                && (mHigh != null ? mHigh.equals(that.mHigh) : that.mHigh == null)
+                && (mLow != null ? mLow.equals(that.mLow) : that.mLow == null);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (mDate ^ (mDate >>> 32));
+        result = 31 * result + mWeatherId;
+        result = 31 * result + (mHigh != null ? mHigh.hashCode() : 0);
+        result = 31 * result + (mLow != null ? mLow.hashCode() : 0);
+        long humidityBits = Double.doubleToLongBits(mHumidity);
+        result = 31 * result + (int) (humidityBits ^ (humidityBits >>> 32));
+        return result;
+    }
+}
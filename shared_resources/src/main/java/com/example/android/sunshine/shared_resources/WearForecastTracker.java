@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.shared_resources;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.google.android.gms.wearable.DataMap;
+import com.google.android.gms.wearable.PutDataMapRequest;
+
+import org.json.JSONException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps track of the multi-day forecast sent to the wearable. Once the wearable acknowledges a
+ * version, following updates only carry the days that differ from that version.
+ *
+ * Every request is computed against the acknowledged version rather than the last sent one,
+ * so the wearable can apply whichever DataItem it receives even if intermediate ones were
+ * collapsed by the Data Layer.
+ *
+ * Routine forecast changes are {@link DataItemPriority#NORMAL} and left to the Data Layer to
+ * batch; they are never held back, so the watch face does not show a stale forecast.
+ *
+ * Used by the handheld only. It is shared so the wearable's tests can run the whole sync path
+ * in one process.
+ */
+public class WearForecastTracker {
+    private static final String LOG_TAG = WearForecastTracker.class.getSimpleName();
+
+    private static final String PREFERENCES_NAME = "wear_forecast_tracker";
+    private static final String KEY_ACKED_VERSION = "acked_version";
+    private static final String KEY_ACKED_DAYS = "acked_days";
+    private static final String KEY_SENT_VERSION = "sent_version";
+    private static final String KEY_SENT_DAYS_PREFIX = "sent_days_";
+
+    private WearForecastTracker() {}
+
+    /**
+     * Creates request carrying given forecast as a delta against the acknowledged version.
+     * Request is marked urgent for the first delivery, when the user is waiting for it and when
+     * a changed day brings severe weather.
+     *
+     * @param context     Application's context
+     * @param days        Current forecast, ordered by date
+     * @param userWaiting true if the sync was requested by the user or the wearable asked for
+     *                    the forecast
+     * @return Request to put or null if the wearable already has (or is about to get) it
+     */
+    public static synchronized PutDataMapRequest createRequest(Context context,
+                                                               List<ForecastDay> days,
+                                                               boolean userWaiting) {
+        SharedPreferences prefs = getPreferences(context);
+        int ackedVersion = prefs.getInt(KEY_ACKED_VERSION, Constants.NO_FORECAST_VERSION);
+        int sentVersion = prefs.getInt(KEY_SENT_VERSION, Constants.NO_FORECAST_VERSION);
+
+        try {
+            // Nothing to do if the same forecast was already sent
+            if (sentVersion != Constants.NO_FORECAST_VERSION && days.equals(ForecastDay
+                    .fromJsonArray(prefs.getString(KEY_SENT_DAYS_PREFIX + sentVersion, null)))) {
+                return null;
+            }
+
+            // Collect days that are new or changed since acknowledged version
+            Map<Long, ForecastDay> ackedDays = new HashMap<>();
+            if (ackedVersion != Constants.NO_FORECAST_VERSION) {
+                for (ForecastDay day : ForecastDay.fromJsonArray(
+                        prefs.getString(KEY_ACKED_DAYS, null))) {
+                    ackedDays.put(day.getDate(), day);
+                }
+            }
+            ArrayList<DataMap> changedDays = new ArrayList<>();
+            int[] changedWeatherIds = new int[days.size()];
+            for (ForecastDay day : days) {
+                if (!day.equals(ackedDays.get(day.getDate()))) {
+                    changedWeatherIds[changedDays.size()] = day.getWeatherId();
+                    changedDays.add(toDataMap(day));
+                }
+            }
+
+            int priority = DataItemPriority.forForecast(
+                    Arrays.copyOf(changedWeatherIds, changedDays.size()),
+                    userWaiting || ackedVersion == Constants.NO_FORECAST_VERSION);
+
+            int version = Math.max(sentVersion, ackedVersion) + 1;
+            PutDataMapRequest request =
+                    PutDataMapRequest.create(Constants.WEATHER_DATA_FORECAST_PATH);
+            DataMap dataMap = request.getDataMap();
+            dataMap.putInt(Constants.FORECAST_VERSION_KEY, version);
+            dataMap.putInt(Constants.FORECAST_BASE_VERSION_KEY, ackedVersion);
+            dataMap.putLong(Constants.FORECAST_START_DATE_KEY,
+                    days.isEmpty() ? 0 : days.get(0).getDate());
+            dataMap.putLong(Constants.FORECAST_END_DATE_KEY,
+                    days.isEmpty() ? 0 : days.get(days.size() - 1).getDate());
+            dataMap.putDataMapArrayList(Constants.FORECAST_DAYS_KEY, changedDays);
+
+            if (priority == DataItemPriority.URGENT) {
+                request.setUrgent();
+            }
+
+            prefs.edit()
+                    .putInt(KEY_SENT_VERSION, version)
+                    .putString(KEY_SENT_DAYS_PREFIX + version, ForecastDay.toJsonArray(days))
+                    .apply();
+
+            Log.d(LOG_TAG, "Forecast version " + version + " carries " + changedDays.size()
+                    + " of " + days.size() + " days (base " + ackedVersion + ", priority "
+                    + priority + ")");
+            return request;
+        } catch (JSONException e) {
+            Log.e(LOG_TAG, e.getMessage(), e);
+            reset(prefs);
+            return null;
+        }
+    }
+
+    /**
+     * Records version acknowledged by the wearable.
+     *
+     * @param context Application's context
+     * @param version Version stored on the wearable or {@link Constants#NO_FORECAST_VERSION}
+     *                if the wearable could not apply the update and needs a full transfer
+     * @return true if the wearable needs a full transfer
+     */
+    public static synchronized boolean onAcknowledged(Context context, int version) {
+        SharedPreferences prefs = getPreferences(context);
+        String sentDays = prefs.getString(KEY_SENT_DAYS_PREFIX + version, null);
+
+        if (version == Constants.NO_FORECAST_VERSION || sentDays == null) {
+            // Unknown version, next update has to carry the whole forecast
+            Log.d(LOG_TAG, "Wearable requested full forecast (version " + version + ")");
+            reset(prefs);
+            return true;
+        }
+
+        // Snapshots of versions up to the acknowledged one are no longer needed
+        SharedPreferences.Editor editor = prefs.edit();
+        for (String key : prefs.getAll().keySet()) {
+            if (key.startsWith(KEY_SENT_DAYS_PREFIX)
+                    && Integer.parseInt(key.substring(KEY_SENT_DAYS_PREFIX.length())) < version) {
+                editor.remove(key);
+            }
+        }
+        editor.putInt(KEY_ACKED_VERSION, version)
+                .putString(KEY_ACKED_DAYS, sentDays)
+                .apply();
+        return false;
+    }
+
+    private static void reset(SharedPreferences prefs) {
+        // Keep version counter so the wearable never sees a version number twice
+        SharedPreferences.Editor editor = prefs.edit();
+        for (String key : prefs.getAll().keySet()) {
+            if (key.startsWith(KEY_SENT_DAYS_PREFIX)) {
+                editor.remove(key);
+            }
+        }
+        editor.remove(KEY_ACKED_DAYS)
+                .putInt(KEY_ACKED_VERSION, Constants.NO_FORECAST_VERSION)
+                .apply();
+    }
+
+    private static DataMap toDataMap(ForecastDay day) {
+        DataMap dataMap = new DataMap();
+        dataMap.putLong(Constants.DATE_KEY, day.getDate());
+        dataMap.putInt(Constants.WEATHER_ID_KEY, day.getWeatherId());
+        dataMap.putString(Constants.HIGH_KEY, day.getHigh());
+        dataMap.putString(Constants.LOW_KEY, day.getLow());
+        dataMap.putDouble(Constants.HUMIDITY_KEY, day.getHumidity());
+        return dataMap;
+    }
+
+    private static SharedPreferences getPreferences(Context context) {
+        return context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+}
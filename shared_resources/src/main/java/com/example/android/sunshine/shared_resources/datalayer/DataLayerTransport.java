@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.shared_resources.datalayer;
+
+import com.google.android.gms.wearable.DataMap;
+
+/**
+ * Subset of the Wearable Data Layer API used by Sunshine. Implementations either talk to
+ * Google Play Services or simulate the Bluetooth link locally, so the phone to watch path can
+ * be exercised without devices.
+ *
+ * Calls may block and must not be made on the main thread.
+ */
+public interface DataLayerTransport {
+
+    /** Receives data changes and messages delivered by the transport **/
+    interface Listener {
+        /**
+         * Called when DataItem at given path has changed.
+         *
+         * @param path    Path of the DataItem
+         * @param dataMap Content of the DataItem
+         */
+        void onDataChanged(String path, DataMap dataMap);
+
+        /**
+         * Called when message has been received.
+         *
+         * @param path Path of the message
+         * @param data Payload of the message, may be null
+         */
+        void onMessageReceived(String path, byte[] data);
+    }
+
+    /**
+     * Stores DataItem and synchronizes it with connected nodes.
+     *
+     * @param path    Path of the DataItem
+     * @param dataMap Content of the DataItem
+     * @param urgent  true if the item should be synchronized immediately instead of being
+     *                batched with other items
+     * @return true if the item has been stored
+     */
+    boolean putDataItem(String path, DataMap dataMap, boolean urgent);
+
+    /**
+     * Sends message to the best node providing given capability.
+     *
+     * @param capabilityName Capability required to handle the message
+     * @param path           Path of the message
+     * @param data           Payload of the message, may be null
+     * @return true if the message has been sent
+     */
+    boolean sendMessage(String capabilityName, String path, byte[] data);
+
+    /**
+     * Sets listener notified about incoming data changes and messages.
+     *
+     * @param listener Listener or null to stop listening
+     */
+    void setListener(Listener listener);
+}
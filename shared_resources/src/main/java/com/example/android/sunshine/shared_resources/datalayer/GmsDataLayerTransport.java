@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.shared_resources.datalayer;
+
+import android.util.Log;
+
+import com.example.android.sunshine.shared_resources.Constants;
+import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.wearable.CapabilityApi;
+import com.google.android.gms.wearable.DataApi;
+import com.google.android.gms.wearable.DataEvent;
+import com.google.android.gms.wearable.DataEventBuffer;
+import com.google.android.gms.wearable.DataMap;
+import com.google.android.gms.wearable.DataMapItem;
+import com.google.android.gms.wearable.MessageApi;
+import com.google.android.gms.wearable.MessageEvent;
+import com.google.android.gms.wearable.Node;
+import com.google.android.gms.wearable.PutDataMapRequest;
+import com.google.android.gms.wearable.PutDataRequest;
+import com.google.android.gms.wearable.Wearable;
+
+/**
+ * {@link DataLayerTransport} backed by the Wearable API of Google Play Services. The client
+ * has to be connected for as long as the transport is used.
+ */
+public class GmsDataLayerTransport implements DataLayerTransport,
+        DataApi.DataListener, MessageApi.MessageListener {
+    private static final String TAG = GmsDataLayerTransport.class.getSimpleName();
+
+    private final GoogleApiClient mGoogleApiClient;
+    private Listener mListener;
+
+    /**
+     * @param googleApiClient Connected client with Wearable API
+     */
+    public GmsDataLayerTransport(GoogleApiClient googleApiClient) {
+        mGoogleApiClient = googleApiClient;
+    }
+
+    /**
+     * Passes changed DataItems of given buffer to the listener. Used by listener services,
+     * which receive data events from the system instead of a registered listener.
+     *
+     * @param dataEventBuffer Data events
+     * @param listener        Listener to notify
+     */
+    public static void dispatchDataEvents(DataEventBuffer dataEventBuffer, Listener listener) {
+        for (DataEvent event : dataEventBuffer) {
+            if (event.getType() == DataEvent.TYPE_CHANGED && event.getDataItem() != null) {
+                listener.onDataChanged(event.getDataItem().getUri().getPath(),
+                        DataMapItem.fromDataItem(event.getDataItem()).getDataMap());
+            }
+        }
+    }
+
+    @Override
+    public boolean putDataItem(String path, DataMap dataMap, boolean urgent) {
+        PutDataMapRequest dataMapRequest = PutDataMapRequest.create(path);
+        dataMapRequest.getDataMap().putAll(dataMap);
+        PutDataRequest request = dataMapRequest.asPutDataRequest();
+        if (urgent) {
+            request.setUrgent();
+        }
+        DataApi.DataItemResult result =
+                Wearable.DataApi.putDataItem(mGoogleApiClient, request).await();
+        if (!result.getStatus().isSuccess()) {
+            Log.e(TAG, String.format(Constants.GOOGLE_API_CLIENT_ERROR,
+                    result.getStatus().getStatusCode()));
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean sendMessage(String capabilityName, String path, byte[] data) {
+        String nodeId = findNodeId(capabilityName);
+        if (nodeId == null) {
+            // Unable to retrieve node with required capability
+            onSendFailed(capabilityName);
+            return false;
+        }
+
+        MessageApi.SendMessageResult result = Wearable.MessageApi.sendMessage(
+                mGoogleApiClient, nodeId, path, data).await();
+        if (!result.getStatus().isSuccess()) {
+            onSendFailed(capabilityName);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void setListener(Listener listener) {
+        if (mListener == null && listener != null) {
+            Wearable.DataApi.addListener(mGoogleApiClient, this);
+            Wearable.MessageApi.addListener(mGoogleApiClient, this);
+        } else if (mListener != null && listener == null) {
+            Wearable.DataApi.removeListener(mGoogleApiClient, this);
+            Wearable.MessageApi.removeListener(mGoogleApiClient, this);
+        }
+        mListener = listener;
+    }
+
+    @Override
+    public void onDataChanged(DataEventBuffer dataEventBuffer) {
+        Listener listener = mListener;
+        if (listener != null) {
+            dispatchDataEvents(dataEventBuffer, listener);
+        }
+    }
+
+    @Override
+    public void onMessageReceived(MessageEvent messageEvent) {
+        Listener listener = mListener;
+        if (listener != null) {
+            listener.onMessageReceived(messageEvent.getPath(), messageEvent.getData());
+        }
+    }
+
+    /**
+     * Returns id of the node messages for given capability are sent to, or null if there is
+     * none. Prefers nearby nodes.
+     *
+     * @param capabilityName Capability required to handle the message
+     */
+    protected String findNodeId(String capabilityName) {
+        CapabilityApi.GetCapabilityResult result = Wearable.CapabilityApi.getCapability(
+                mGoogleApiClient, capabilityName, CapabilityApi.FILTER_REACHABLE).await();
+        if (!result.getStatus().isSuccess()) {
+            return null;
+        }
+        String nodeId = null;
+        for (Node node : result.getCapability().getNodes()) {
+            if (node.isNearby()) {
+                return node.getId();
+            }
+            nodeId = node.getId();
+        }
+        return nodeId;
+    }
+
+    /**
+     * Called when a message could not be delivered to the node returned by
+     * {@link #findNodeId(String)}.
+     *
+     * @param capabilityName Capability required to handle the message
+     */
+    protected void onSendFailed(String capabilityName) {
+    }
+
+    /** Returns connected client used by this transport **/
+    protected GoogleApiClient getGoogleApiClient() {
+        return mGoogleApiClient;
+    }
+}
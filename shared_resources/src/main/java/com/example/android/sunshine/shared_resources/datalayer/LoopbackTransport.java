@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.shared_resources.datalayer;
+
+import com.google.android.gms.wearable.DataMap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory {@link DataLayerTransport} connecting two endpoints through a simulated link.
+ *
+ * Every transfer is delayed by the link latency plus the time needed to push its bytes through
+ * the link bandwidth. Transfers share the link, so they queue behind each other just like on a
+ * real Bluetooth connection. Non-urgent DataItems are additionally held back by the batching
+ * delay, and putting a DataItem with unchanged content does not trigger a data change, which
+ * matches the behaviour of the Data Layer API.
+ *
+ * DataItem size is the size of its serialized DataMap. Assets referenced by a DataMap are not
+ * transferred.
+ */
+public class LoopbackTransport implements DataLayerTransport {
+
+    /** Simulated link shared by both endpoints **/
+    private static class Link {
+        final long latencyMs;
+        final long bytesPerSecond;
+        final long batchingDelayMs;
+        final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        // Time at which the link becomes idle again
+        long freeAtMs;
+        long bytesTransferred;
+        int transfers;
+
+        Link(long latencyMs, long bytesPerSecond, long batchingDelayMs) {
+            this.latencyMs = latencyMs;
+            this.bytesPerSecond = bytesPerSecond;
+            this.batchingDelayMs = batchingDelayMs;
+        }
+
+        /**
+         * Reserves link for transfer of given size and returns delay after which the transfer
+         * is delivered.
+         */
+        synchronized long reserve(int size, long extraDelayMs) {
+            long now = System.currentTimeMillis();
+            long transferMs = bytesPerSecond > 0 ? size * 1000L / bytesPerSecond : 0;
+            long startMs = Math.max(now + extraDelayMs, freeAtMs);
+            freeAtMs = startMs + transferMs;
+            bytesTransferred += size;
+            transfers++;
+            return freeAtMs + latencyMs - now;
+        }
+    }
+
+    private final Link mLink;
+    // Serialized DataMaps of stored DataItems keyed by path
+    private final Map<String, byte[]> mDataItems = new HashMap<>();
+    private LoopbackTransport mPeer;
+    private volatile Listener mListener;
+
+    private LoopbackTransport(Link link) {
+        mLink = link;
+    }
+
+    /**
+     * Creates two connected endpoints.
+     *
+     * @param latencyMs       One way latency of the link
+     * @param bytesPerSecond  Bandwidth of the link, 0 for unlimited
+     * @param batchingDelayMs Delay applied to non-urgent DataItems
+     * @return Array holding handheld and wearable endpoints
+     */
+    public static LoopbackTransport[] createPair(long latencyMs, long bytesPerSecond,
+                                                 long batchingDelayMs) {
+        Link link = new Link(latencyMs, bytesPerSecond, batchingDelayMs);
+        LoopbackTransport handheld = new LoopbackTransport(link);
+        LoopbackTransport wearable = new LoopbackTransport(link);
+        handheld.mPeer = wearable;
+        wearable.mPeer = handheld;
+        return new LoopbackTransport[]{handheld, wearable};
+    }
+
+    @Override
+    public boolean putDataItem(final String path, DataMap dataMap, boolean urgent) {
+        final byte[] data = dataMap.toByteArray();
+        synchronized (mDataItems) {
+            if (Arrays.equals(mDataItems.get(path), data)) {
+                // Unchanged DataItem is not synchronized again
+                return true;
+            }
+            mDataItems.put(path, data);
+        }
+
+        // Receiver gets its own copy, just like a DataItem read on the other node
+        final DataMap copy = new DataMap();
+        copy.putAll(dataMap);
+        long delayMs = mLink.reserve(data.length, urgent ? 0 : mLink.batchingDelayMs);
+        mLink.executor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (mPeer.mDataItems) {
+                    mPeer.mDataItems.put(path, data);
+                }
+                Listener listener = mPeer.mListener;
+                if (listener != null) {
+                    listener.onDataChanged(path, copy);
+                }
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    @Override
+    public boolean sendMessage(String capabilityName, final String path, final byte[] data) {
+        long delayMs = mLink.reserve(data == null ? 0 : data.length, 0);
+        mLink.executor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                Listener listener = mPeer.mListener;
+                if (listener != null) {
+                    listener.onMessageReceived(path, data);
+                }
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    @Override
+    public void setListener(Listener listener) {
+        mListener = listener;
+    }
+
+    /** Returns number of payload bytes pushed through the link by both endpoints **/
+    public long getBytesTransferred() {
+        synchronized (mLink) {
+            return mLink.bytesTransferred;
+        }
+    }
+
+    /** Returns number of transfers made through the link by both endpoints **/
+    public int getTransfers() {
+        synchronized (mLink) {
+            return mLink.transfers;
+        }
+    }
+
+    /** Stops delivering transfers, pending ones are dropped **/
+    public void shutdown() {
+        mLink.executor.shutdownNow();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.graphics.drawable.Icon;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.wearable.complications.ComplicationData;
+import android.test.AndroidTestCase;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Checks that complication data prepared on the worker thread is swapped in on the UI thread,
+    and that results prepared for outdated data are dropped.
+ */
+public class TestComplicationPreparation extends AndroidTestCase {
+
+    private static final int SURFACE_SIZE = 320;
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private ComplicationsHelper mComplicationsHelper;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mComplicationsHelper = new ComplicationsHelper(getContext());
+        mComplicationsHelper.recalculateComplicationsPositions(SURFACE_SIZE, SURFACE_SIZE);
+    }
+
+    public void testPreparedDataIsSwappedIn() throws InterruptedException {
+        CountDownLatch latch = setLatchListener(1);
+        mComplicationsHelper.prepareComplicationDataAsync(
+                ComplicationsHelper.LEFT_DIAL_COMPLICATION, createSmallImageData(Color.YELLOW));
+
+        assertTrue("Error: Complication was not prepared in time",
+                latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue("Error: Prepared complication not counted: "
+                        + mComplicationsHelper.getPreparationStats(),
+                mComplicationsHelper.getPreparationStats().startsWith("prepared 1,"));
+    }
+
+    public void testOutdatedDataIsDropped() throws InterruptedException {
+        CountDownLatch latch = setLatchListener(2);
+        // Both updates arrive on the UI thread before any result is swapped in
+        new Handler(Looper.getMainLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                mComplicationsHelper.prepareComplicationDataAsync(
+                        ComplicationsHelper.LEFT_DIAL_COMPLICATION,
+                        createSmallImageData(Color.YELLOW));
+                mComplicationsHelper.prepareComplicationDataAsync(
+                        ComplicationsHelper.LEFT_DIAL_COMPLICATION,
+                        createSmallImageData(Color.BLUE));
+            }
+        });
+
+        // Only the newest data is swapped in
+        assertFalse("Error: Outdated complication was swapped in",
+                latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals("Error: Unexpected number of swapped in complications", 1,
+                latch.getCount());
+        assertTrue("Error: Outdated complication not dropped: "
+                        + mComplicationsHelper.getPreparationStats(),
+                mComplicationsHelper.getPreparationStats().endsWith("dropped 1"));
+    }
+
+    private CountDownLatch setLatchListener(int count) {
+        final CountDownLatch latch = new CountDownLatch(count);
+        mComplicationsHelper.setOnComplicationPreparedListener(
+                new ComplicationsHelper.OnComplicationPreparedListener() {
+                    @Override
+                    public void onComplicationPrepared(int watchFaceComplicationId) {
+                        latch.countDown();
+                    }
+                });
+        return latch;
+    }
+
+    private static ComplicationData createSmallImageData(int color) {
+        Bitmap image = Bitmap.createBitmap(96, 96, Bitmap.Config.ARGB_8888);
+        image.eraseColor(color);
+        return new ComplicationData.Builder(ComplicationData.TYPE_SMALL_IMAGE)
+                .setImageStyle(ComplicationData.IMAGE_STYLE_ICON)
+                .setSmallImage(Icon.createWithBitmap(image))
+                .build();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.drawable.Icon;
+import android.os.Debug;
+import android.support.wearable.complications.ComplicationData;
+import android.support.wearable.complications.ComplicationText;
+import android.test.AndroidTestCase;
+
+/*
+    Counts heap allocations made while drawing watch face frames. Steady state frames have to be
+    allocation free, so any regression fails the test.
+ */
+public class TestRenderAllocations extends AndroidTestCase {
+
+    private static final int SURFACE_SIZE = 320;
+    // First frames prepare cached drawables and texts
+    private static final int WARM_UP_FRAMES = 5;
+    private static final int MEASURED_FRAMES = 120;
+
+    private WatchFaceRenderer mRenderer;
+    private Canvas mCanvas;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        mRenderer = new WatchFaceRenderer(getContext(), null);
+        mRenderer.onSurfaceChanged(SURFACE_SIZE, SURFACE_SIZE);
+        Bitmap background = Bitmap.createBitmap(SURFACE_SIZE, SURFACE_SIZE,
+                Bitmap.Config.ARGB_8888);
+        background.eraseColor(Color.DKGRAY);
+        mRenderer.setBackgrounds(background, background);
+
+        mRenderer.updateComplicationData(ComplicationsHelper.TOP_DIAL_COMPLICATION,
+                new ComplicationData.Builder(ComplicationData.TYPE_SHORT_TEXT)
+                        .setShortTitle(ComplicationText.plainText("12\u00B0"))
+                        .setShortText(ComplicationText.plainText("21\u00B0"))
+                        .build());
+        Bitmap icon = Bitmap.createBitmap(96, 96, Bitmap.Config.ARGB_8888);
+        icon.eraseColor(Color.YELLOW);
+        mRenderer.updateComplicationData(ComplicationsHelper.LEFT_DIAL_COMPLICATION,
+                new ComplicationData.Builder(ComplicationData.TYPE_SMALL_IMAGE)
+                        .setImageStyle(ComplicationData.IMAGE_STYLE_ICON)
+                        .setSmallImage(Icon.createWithBitmap(icon))
+                        .build());
+        mRenderer.updateComplicationData(ComplicationsHelper.BOTTOM_DIAL_COMPLICATION,
+                new ComplicationData.Builder(ComplicationData.TYPE_RANGED_VALUE)
+                        .setValue(64f)
+                        .setMinValue(0f)
+                        .setMaxValue(100f)
+                        .setShortTitle(ComplicationText.plainText("Hum"))
+                        .setShortText(ComplicationText.plainText("64%"))
+                        .build());
+
+
+        mCanvas = new Canvas(Bitmap.createBitmap(SURFACE_SIZE, SURFACE_SIZE,
+                Bitmap.Config.ARGB_8888));
+    }
+
+    public void testInteractiveFramesDoNotAllocate() {
+        mRenderer.setAmbientMode(false);
+        int allocations = countFrameAllocations(1000);
+        assertEquals("Error: Interactive frames allocated " + allocations + " objects in "
+                + MEASURED_FRAMES + " frames", 0, allocations);
+    }
+
+    public void testAmbientFramesDoNotAllocate() {
+        mRenderer.setAmbientMode(true);
+        int allocations = countFrameAllocations(60000);
+        assertEquals("Error: Ambient frames allocated " + allocations + " objects in "
+                + MEASURED_FRAMES + " frames", 0, allocations);
+    }
+
+    @SuppressWarnings("deprecation")
+    private int countFrameAllocations(long frameIntervalMs) {
+        long now = System.currentTimeMillis();
+        for (int frame = 0; frame < WARM_UP_FRAMES; frame++) {
+            mRenderer.drawFrame(mCanvas, now + frame * frameIntervalMs);
+        }
+
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        for (int frame = 0; frame < MEASURED_FRAMES; frame++) {
+            mRenderer.drawFrame(mCanvas, now + (WARM_UP_FRAMES + frame) * frameIntervalMs);
+        }
+        Debug.stopAllocCounting();
+        return Debug.getThreadAllocCount();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine;
+
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.os.SystemClock;
+import android.test.AndroidTestCase;
+import android.util.Log;
+
+/*
+    Compares complication text sizing done on every frame with the cached layout used now.
+    Results are logged, the cached path has to be faster.
+ */
+public class TestTextLayoutBenchmark extends AndroidTestCase {
+    private static final String TAG = TestTextLayoutBenchmark.class.getSimpleName();
+
+    private static final int WARM_UP_ITERATIONS = 1000;
+    private static final int MEASURED_ITERATIONS = 20000;
+    private static final float WIDTH = 91f;
+    private static final float HEIGHT = 91f;
+
+    private final String mText = "21\u00B0";
+    private final String mTitle = "12\u00B0";
+    private final Paint mPaint = new Paint();
+    private final Rect mBounds = new Rect();
+    private final TextLayoutCache.Layout mLayout = new TextLayoutCache.Layout();
+
+    public void testCachedLayoutIsFasterThanMeasuring() {
+        final TextLayoutCache cache =
+                new TextLayoutCache(ComplicationsHelper.COMPLICATION_IDS.length);
+
+        long measuringNanos = time(new Runnable() {
+            @Override
+            public void run() {
+                measureFrame();
+            }
+        });
+        long cachedNanos = time(new Runnable() {
+            @Override
+            public void run() {
+                cachedFrame(cache);
+            }
+        });
+
+        Log.i(TAG, "Text sizing per frame: measuring " + measuringNanos + " ns, cached "
+                + cachedNanos + " ns, cache " + cache.getStats());
+        assertTrue("Error: Cached layout (" + cachedNanos + " ns) is not faster than measuring ("
+                + measuringNanos + " ns)", cachedNanos < measuringNanos);
+    }
+
+    /** Sizes both texts of a complication the way every frame used to **/
+    private void measureFrame() {
+        TextLayoutCache.measure(mLayout, mPaint, mText, mText.length(), WIDTH * 0.5f,
+                HEIGHT * 0.2f, HEIGHT * 0.3f, mBounds);
+        TextLayoutCache.measure(mLayout, mPaint, mTitle, mTitle.length(), WIDTH * 0.5f,
+                HEIGHT * 0.2f, HEIGHT * 0.65f, mBounds);
+    }
+
+    /** Looks up both texts of a complication the way frames do now **/
+    private void cachedFrame(TextLayoutCache cache) {
+        cache.getLayout(ComplicationsHelper.TOP_DIAL_COMPLICATION,
+                TextLayoutCache.ROLE_TEXT_WITH_TITLE, mText, mText.length(), false, mPaint,
+                WIDTH * 0.5f, HEIGHT * 0.2f, HEIGHT * 0.3f);
+        cache.getLayout(ComplicationsHelper.TOP_DIAL_COMPLICATION,
+                TextLayoutCache.ROLE_TITLE, mTitle, mTitle.length(), false, mPaint,
+                WIDTH * 0.5f, HEIGHT * 0.2f, HEIGHT * 0.65f);
+    }
+
+    /** Returns average duration of a single iteration in nanoseconds **/
+    private static long time(Runnable frame) {
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            frame.run();
+        }
+        long start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            frame.run();
+        }
+        return (SystemClock.elapsedRealtimeNanos() - start) / MEASURED_ITERATIONS;
+    }
+}
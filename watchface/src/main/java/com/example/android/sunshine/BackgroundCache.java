@@ -0,0 +1,138 @@
+package com.example.android.sunshine;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Disk cache of rendered watch face backgrounds, so new engines load them instead of drawing
+ * the dial again. Backgrounds are keyed by shape, size, theme and version (app version plus
+ * version of the drawing code); files of other versions are deleted when a new background is
+ * stored.
+ */
+final class BackgroundCache {
+    private static final String TAG = BackgroundCache.class.getSimpleName();
+
+    private static final String CACHE_DIRECTORY = "backgrounds";
+    private static final String FILE_EXTENSION = ".png";
+
+    // Writes files off the UI thread, one at a time
+    private static final ExecutorService sExecutor = Executors.newSingleThreadExecutor();
+
+    private BackgroundCache() {}
+
+    /**
+     * Returns cache key of a background.
+     *
+     * @param isSquare  true if the watch is square
+     * @param width     Width of the background
+     * @param height    Height of the background
+     * @param isAmbient true for ambient background
+     * @param version   Version of the background drawing code
+     */
+    static String getKey(boolean isSquare, int width, int height, boolean isAmbient,
+                         int version) {
+        return (isSquare ? "square" : "round") + "_" + width + "x" + height + "_"
+                + (isAmbient ? "ambient" : "normal") + getVersionSuffix(version);
+    }
+
+    /**
+     * Loads background from the cache or returns null if there is none.
+     *
+     * @param context Application's context
+     * @param key     Key returned by {@link #getKey(boolean, int, int, boolean, int)}
+     */
+    static Bitmap load(Context context, String key) {
+        File file = new File(getDirectory(context), key + FILE_EXTENSION);
+        if (!file.exists()) {
+            return null;
+        }
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        Bitmap bitmap = BitmapFactory.decodeFile(file.getPath(), options);
+        if (bitmap == null) {
+            Log.w(TAG, "Cannot decode cached background " + key);
+            file.delete();
+        }
+        return bitmap;
+    }
+
+    /**
+     * Writes background to the cache on a background thread. The bitmap must not be changed
+     * afterwards.
+     *
+     * @param context Application's context
+     * @param key     Key returned by {@link #getKey(boolean, int, int, boolean, int)}
+     * @param version Version the key was created with
+     * @param bitmap  Rendered background
+     */
+    static void storeAsync(Context context, final String key, final int version,
+                           final Bitmap bitmap) {
+        final File directory = getDirectory(context);
+        sExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                store(directory, key, version, bitmap);
+            }
+        });
+    }
+
+    private static void store(File directory, String key, int version, Bitmap bitmap) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            Log.w(TAG, "Cannot create " + directory);
+            return;
+        }
+
+        // Remove backgrounds of other versions
+        String versionSuffix = getVersionSuffix(version) + FILE_EXTENSION;
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (!file.getName().endsWith(versionSuffix)) {
+                    file.delete();
+                }
+            }
+        }
+
+        // Write to a temporary file first, so a partially written file is never loaded
+        File file = new File(directory, key + FILE_EXTENSION);
+        File tempFile = new File(directory, key + ".tmp");
+        FileOutputStream outputStream = null;
+        try {
+            outputStream = new FileOutputStream(tempFile);
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, outputStream);
+            outputStream.close();
+            outputStream = null;
+            if (!tempFile.renameTo(file)) {
+                Log.w(TAG, "Cannot store background " + key);
+                tempFile.delete();
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot store background " + key, e);
+            tempFile.delete();
+        } finally {
+            if (outputStream != null) {
+                try {
+                    outputStream.close();
+                } catch (IOException e) {
+                    Log.e(TAG, e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    private static String getVersionSuffix(int version) {
+        return "_v" + BuildConfig.VERSION_CODE + "." + version;
+    }
+
+    private static File getDirectory(Context context) {
+        return new File(context.getCacheDir(), CACHE_DIRECTORY);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.android.sunshine;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.Icon;
+import android.os.SystemClock;
+import android.support.v4.graphics.drawable.RoundedBitmapDrawable;
+import android.support.v4.graphics.drawable.RoundedBitmapDrawableFactory;
+import android.support.wearable.complications.ComplicationData;
+
+/**
+ * Ready to draw state of a single complication. Images of the complication data are loaded,
+ * scaled and wrapped in drawables up front, so drawing the complication only positions them.
+ * Instances are created off the UI thread and never changed afterwards.
+ */
+final class ComplicationRenderState {
+    // Small images take this share of the watch face's half width/height
+    private static final float SMALL_IMAGE_SCALE = 0.35f;
+
+    final ComplicationData data;
+    // Round small image scaled to the watch face, or null
+    final RoundedBitmapDrawable smallImage;
+    // Icon of ranged value complication, or null
+    final Drawable icon;
+    // Watch face size the state was prepared for
+    final int surfaceWidth;
+    final int surfaceHeight;
+    // Time it took to prepare the state
+    final long prepareNanos;
+
+    private ComplicationRenderState(ComplicationData data, RoundedBitmapDrawable smallImage,
+                                    Drawable icon, int surfaceWidth, int surfaceHeight,
+                                    long prepareNanos) {
+        this.data = data;
+        this.smallImage = smallImage;
+        this.icon = icon;
+        this.surfaceWidth = surfaceWidth;
+        this.surfaceHeight = surfaceHeight;
+        this.prepareNanos = prepareNanos;
+    }
+
+    /**
+     * Prepares render state of the complication data. May be called on any thread.
+     *
+     * @param context       Application's context
+     * @param data          Complication data
+     * @param surfaceWidth  Width of the watch face
+     * @param surfaceHeight Height of the watch face
+     */
+    static ComplicationRenderState prepare(Context context, ComplicationData data,
+                                           int surfaceWidth, int surfaceHeight) {
+        long startNanos = SystemClock.elapsedRealtimeNanos();
+        RoundedBitmapDrawable smallImage = null;
+        Drawable icon = null;
+
+        // Images can't be scaled before the watch face size is known
+        if (data.getType() == ComplicationData.TYPE_SMALL_IMAGE && data.getSmallImage() != null
+                && surfaceWidth > 0 && surfaceHeight > 0) {
+            smallImage = createSmallImage(context, data.getSmallImage(), surfaceWidth,
+                    surfaceHeight);
+        } else if (data.getType() == ComplicationData.TYPE_RANGED_VALUE
+                && data.getIcon() != null) {
+            icon = data.getIcon().loadDrawable(context);
+        }
+
+        return new ComplicationRenderState(data, smallImage, icon, surfaceWidth, surfaceHeight,
+                SystemClock.elapsedRealtimeNanos() - startNanos);
+    }
+
+    /**
+     * Loads small image and scales it into a round drawable.
+     */
+    private static RoundedBitmapDrawable createSmallImage(Context context, Icon smallImage,
+                                                          int surfaceWidth, int surfaceHeight) {
+        BitmapDrawable imageDrawable = (BitmapDrawable) smallImage.loadDrawable(context);
+        Bitmap imageBitmap = imageDrawable.getBitmap();
+
+        float widthScale = (surfaceWidth * 0.5f * SMALL_IMAGE_SCALE) / imageBitmap.getWidth();
+        float heightScale = (surfaceHeight * 0.5f * SMALL_IMAGE_SCALE) / imageBitmap.getHeight();
+        int scaledWidth = (int) (widthScale * imageBitmap.getWidth());
+        int scaledHeight = (int) (heightScale * imageBitmap.getHeight());
+
+        // Create the RoundedBitmapDrawable.
+        RoundedBitmapDrawable roundDrawable = RoundedBitmapDrawableFactory.create(
+                context.getResources(),
+                Bitmap.createScaledBitmap(imageBitmap, scaledWidth, scaledHeight, false));
+        roundDrawable.setCircular(true);
+        return roundDrawable;
+    }
+}
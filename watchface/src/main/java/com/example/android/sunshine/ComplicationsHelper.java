@@ -10,18 +10,20 @@ import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.Rect;
-import android.graphics.Typeface;
-import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
-import android.graphics.drawable.Icon;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.support.v4.graphics.drawable.RoundedBitmapDrawable;
-import android.support.v4.graphics.drawable.RoundedBitmapDrawableFactory;
 import android.support.wearable.complications.ComplicationData;
 import android.support.wearable.complications.ComplicationHelperActivity;
 import android.support.wearable.complications.ComplicationText;
 import android.util.Log;
 import android.util.SparseArray;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 /**
  * Helper class that draws complications on the Sunshine
  */
@@ -46,6 +48,13 @@ class ComplicationsHelper {
             {ComplicationData.TYPE_RANGED_VALUE, ComplicationData.TYPE_SHORT_TEXT}
     };
 
+    // Default providers (top, left, bottom)
+    static final String[] COMPLICATION_DEFAULT_PROVIDERS = {
+            "com.example.android.sunshine.complications.TemperatureProviderService",
+            "com.example.android.sunshine.complications.SummaryProviderService",
+            "com.example.android.sunshine.complications.HumidityProviderService"
+    };
+
     /**
      * Constants used to draw complications
      */
@@ -58,6 +67,18 @@ class ComplicationsHelper {
     private static final float COMPLICATION_SECONDARY_SHADOW_RADIUS = 2f;
     private static final int CANVAS_ROTATION_DEGREES = 210;
 
+    // Prepares render states of incoming complication data off the UI thread, one at a time
+    private static final ExecutorService sPreparationExecutor =
+            Executors.newSingleThreadExecutor();
+
+    /**
+     * Receives notification that prepared complication has been swapped in and the watch face
+     * should be redrawn.
+     */
+    interface OnComplicationPreparedListener {
+        void onComplicationPrepared(int watchFaceComplicationId);
+    }
+
     // Variables for painting Complications
     private Paint mComplicationPaint;
     private Paint mComplicationBackgroundPaint;
@@ -80,12 +101,46 @@ class ComplicationsHelper {
     private Bitmap mRangeComplicationBackground;
     private Bitmap mTextComplicationBackground;
 
+    // Scratch objects reused by every frame, so drawing complications does not allocate
+    private final Rect mTextBounds = new Rect();
+    private final TextLayoutCache mTextLayoutCache = new TextLayoutCache(COMPLICATION_IDS.length);
+    private final Path mRangeHandPath = new Path();
+    // Tappable areas of the complications, rebuilt with their positions
+    private final HitTestIndex mHitTestIndex = new HitTestIndex();
+
+    // Persistent layer holding rendered ranged complication and the state it was rendered for
+    private Bitmap mRangeComplicationBitmap;
+    private Canvas mRangeComplicationCanvas;
+    private boolean mRangeLayerValid;
+    private ComplicationData mRangeLayerData;
+    private float mRangeLayerValue;
+    private CharSequence mRangeLayerTitle;
+    private boolean mRangeLayerAmbient;
+    private boolean mAmbient;
+
+    // Last drawn ranged complication title and the upper cased text prepared from it
+    private CharSequence mRangeTitleSource;
+    private String mRangeTitle;
+
     // Maps active complication ids to the data for that complication. Note: Data will only be
     // present if the user has chosen a provider via the settings activity for the watch face.
     private SparseArray<ComplicationData> mActiveComplicationDataSparseArray;
+    // Ready to draw state of the active complication data, keyed by complication id
+    private final SparseArray<ComplicationRenderState> mRenderStates = new SparseArray<>();
+
+    // Latest data requested per complication id; results prepared for older data are dropped
+    private final SparseArray<ComplicationData> mRequestedData = new SparseArray<>();
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private OnComplicationPreparedListener mOnComplicationPreparedListener;
+    private int mPreparedCount;
+    private int mDroppedCount;
+    private long mPrepareTotalNanos;
 
     private Context mContext;
 
+    // Receives draw cost of every complication, if set
+    private FrameStats mFrameStats;
+
     private int mBackgroundWidth;
     private int mBackgroundHeight;
 
@@ -94,12 +149,10 @@ class ComplicationsHelper {
 
         mActiveComplicationDataSparseArray = new SparseArray<>(COMPLICATION_IDS.length);
 
-        mComplicationPaint = new Paint();
+        mComplicationPaint = WatchFaceResources.createTextPaint(context,
+                WatchFaceResources.FONT_KANIT_LIGHT);
         mComplicationPaint.setColor(Color.WHITE);
         mComplicationPaint.setTextSize(COMPLICATION_PRIMARY_FONT_SIZE);
-        mComplicationPaint.setTypeface(Typeface.createFromAsset(context.getAssets(),
-                "fonts/Kanit-Light.ttf"));
-        mComplicationPaint.setAntiAlias(true);
 
         mComplicationBackgroundPaint = new Paint();
         mComplicationBackgroundPaint.setColor(context.getColor(R.color.primary));
@@ -119,12 +172,10 @@ class ComplicationsHelper {
         mComplicationHandPaint.setShadowLayer(COMPLICATION_SECONDARY_SHADOW_RADIUS, 0, 0,
                 mContext.getColor(R.color.shadow_light));
 
-        mComplicationTickPaint = new Paint();
+        mComplicationTickPaint = WatchFaceResources.createTextPaint(context,
+                WatchFaceResources.FONT_KANIT_MEDIUM);
         mComplicationTickPaint.setColor(Color.WHITE);
         mComplicationTickPaint.setTextSize(COMPLICATION_TICK_FONT_SIZE);
-        mComplicationTickPaint.setTypeface(Typeface.createFromAsset(context.getAssets(),
-                "fonts/Kanit-Medium.ttf"));
-        mComplicationTickPaint.setAntiAlias(true);
 
         mComplicationMaskPaint = new Paint();
         mComplicationMaskPaint.setStyle(Paint.Style.STROKE);
@@ -140,13 +191,17 @@ class ComplicationsHelper {
      * @param currentTimeMillis current time in milliseconds
      */
     void drawComplications(Canvas canvas, long currentTimeMillis) {
+        ComplicationRenderState renderState;
         ComplicationData complicationData;
 
         for (int COMPLICATION_ID : COMPLICATION_IDS) {
-            complicationData = mActiveComplicationDataSparseArray.get(COMPLICATION_ID);
+            renderState = mRenderStates.get(COMPLICATION_ID);
+            complicationData = renderState != null ? renderState.data : null;
 
             if ((complicationData != null)
                     && (complicationData.isActive(currentTimeMillis))) {
+                long startNanos = SystemClock.elapsedRealtimeNanos();
+
                 // Top & Bottom short text complications
                 if (complicationData.getType() == ComplicationData.TYPE_SHORT_TEXT
                         || complicationData.getType() == ComplicationData.TYPE_NO_PERMISSION) {
@@ -162,7 +217,7 @@ class ComplicationsHelper {
                         || complicationData.getType() == ComplicationData.TYPE_NO_PERMISSION) {
                     drawSmallImageComplication(
                             canvas,
-                            complicationData);
+                            renderState);
                 }
 
                 // Bottom ranged value complication
@@ -171,7 +226,12 @@ class ComplicationsHelper {
                     drawRangeComplication(
                             canvas,
                             currentTimeMillis,
-                            complicationData);
+                            renderState);
+                }
+
+                if (mFrameStats != null) {
+                    mFrameStats.onComplicationDrawn(COMPLICATION_ID,
+                            SystemClock.elapsedRealtimeNanos() - startNanos);
                 }
             }
         }
@@ -189,11 +249,7 @@ class ComplicationsHelper {
         // Get text data
         ComplicationText shortText = data.getShortText();
         ComplicationText shortTitle = data.getShortTitle();
-
-        CharSequence shortTextMessage = shortText.getText(mContext, now);
-        int endIndex = shortTextMessage.length() < COMPLICATION_TEXT_MAXIMUM_LENGTH ?
-                shortTextMessage.length() : 7;
-        String text = shortTextMessage.toString().substring(0, endIndex);
+        CharSequence text = shortText.getText(mContext, now);
 
         // Set correct Y axis position
         float complicationY;
@@ -213,29 +269,24 @@ class ComplicationsHelper {
                 complicationY,
                 null);
 
+        float width = mTextComplicationBackground.getWidth();
+        float height = mTextComplicationBackground.getHeight();
+
         // Complication short title
         if (shortTitle != null) {
-            // Set text size dynamically depending on length
-            setTextSize(
-                    mComplicationPaint,
-                    mTextComplicationBackground.getWidth() * 0.5f,
-                    mTextComplicationBackground.getHeight() * 0.2f,
-                    text);
-
-            // Calculate short text bounds
-            Rect textBounds = new Rect();
-            mComplicationPaint.getTextBounds(text,
-                    0, text.length(), textBounds);
-            float offsetX = mComplicationPaint.measureText(text) * 0.5f;
-            float offsetY = mTextComplicationBackground.getHeight() * 0.3f + textBounds.height() * 0.5f;
+            // Text size depends on length, texts are only measured when they change
+            TextLayoutCache.Layout layout = mTextLayoutCache.getLayout(id,
+                    TextLayoutCache.ROLE_TEXT_WITH_TITLE, text, COMPLICATION_TEXT_MAXIMUM_LENGTH,
+                    mAmbient, mComplicationPaint, width * 0.5f, height * 0.2f, height * 0.3f);
 
             // Complication short text
+            mComplicationPaint.setTextSize(layout.textSize);
             canvas.drawText(
                     text,
                     0,
-                    text.length(),
-                    mTopComplicationX - offsetX,
-                    complicationY + offsetY,
+                    layout.length,
+                    mTopComplicationX - layout.offsetX,
+                    complicationY + layout.offsetY,
                     mComplicationPaint);
 
             // Draw separator
@@ -246,51 +297,35 @@ class ComplicationsHelper {
                     complicationY + mRangeComplicationBackground.getHeight() * 0.5f,
                     mComplicationTickPaint);
 
-            CharSequence shortTitleMessage = shortTitle.getText(mContext, now);
-            endIndex = shortTitleMessage.length() < COMPLICATION_TEXT_MAXIMUM_LENGTH ?
-                    shortTitleMessage.length() : 7;
-            String title = shortTitleMessage.toString().substring(0, endIndex);
-
-            // Set text size dynamically depending on length
-            setTextSize(
-                    mComplicationPaint,
-                    mTextComplicationBackground.getWidth() * 0.5f,
-                    mTextComplicationBackground.getHeight() * 0.2f,
-                    title);
-
-            mComplicationPaint.getTextBounds(title, 0, title.length(), textBounds);
-            offsetX = mComplicationPaint.measureText(title) * 0.5f;
-            offsetY = mTextComplicationBackground.getHeight() * 0.65f + textBounds.height() * 0.5f;
+            CharSequence title = shortTitle.getText(mContext, now);
+            layout = mTextLayoutCache.getLayout(id, TextLayoutCache.ROLE_TITLE, title,
+                    COMPLICATION_TEXT_MAXIMUM_LENGTH, mAmbient, mComplicationPaint,
+                    width * 0.5f, height * 0.2f, height * 0.65f);
 
+            mComplicationPaint.setTextSize(layout.textSize);
             mComplicationPaint.setColor(mContext.getColor(R.color.primary_light));
             canvas.drawText(
                     title,
                     0,
-                    title.length(),
-                    mTopComplicationX - offsetX,
-                    complicationY + offsetY,
+                    layout.length,
+                    mTopComplicationX - layout.offsetX,
+                    complicationY + layout.offsetY,
                     mComplicationPaint);
             mComplicationPaint.setColor(Color.WHITE);
         } else {
-            // Set text size dynamically depending on length
-            setTextSize(
-                    mComplicationPaint,
-                    mTextComplicationBackground.getWidth() * 0.5f,
-                    mTextComplicationBackground.getHeight() * 0.4f,
-                    text);
             // Position text in the middle of complication if there is no title data
-            Rect textBounds = new Rect();
-            mComplicationPaint.getTextBounds(text, 0, text.length(), textBounds);
-            float offsetX = mComplicationPaint.measureText(text) * 0.5f;
-            float offsetY = mTextComplicationBackground.getHeight() * 0.5f
-                    + textBounds.height() * 0.5f;
+            TextLayoutCache.Layout layout = mTextLayoutCache.getLayout(id,
+                    TextLayoutCache.ROLE_TEXT, text, COMPLICATION_TEXT_MAXIMUM_LENGTH,
+                    mAmbient, mComplicationPaint, width * 0.5f, height * 0.4f, height * 0.5f);
+
             // Complication short text
+            mComplicationPaint.setTextSize(layout.textSize);
             canvas.drawText(
                     text,
                     0,
-                    text.length(),
-                    mTopComplicationX - offsetX,
-                    complicationY + offsetY,
+                    layout.length,
+                    mTopComplicationX - layout.offsetX,
+                    complicationY + layout.offsetY,
                     mComplicationPaint);
         }
     }
@@ -298,25 +333,17 @@ class ComplicationsHelper {
     /**
      * Draws left small image complications.
      *
-     * @param canvas on which to draw
-     * @param data   to be drawn
+     * @param canvas      on which to draw
+     * @param renderState of the complication, holding its prepared drawable
      */
-    private void drawSmallImageComplication(Canvas canvas, ComplicationData data) {
-        BitmapDrawable imageDrawable = (BitmapDrawable) data.getSmallImage()
-                .loadDrawable(mContext);
-        Bitmap imageBitmap = imageDrawable.getBitmap();
-
-        float widthScale = (mBackgroundWidth * 0.5f * 0.35f) / imageBitmap.getWidth();
-        float heightScale = (mBackgroundHeight * 0.5f * 0.35f) / imageBitmap.getHeight();
-        int scaledWidth = (int) (widthScale * imageBitmap.getWidth());
-        int scaledHeight = (int) (heightScale * imageBitmap.getHeight());
-
-        // Create the RoundedBitmapDrawable.
-        RoundedBitmapDrawable roundDrawable = RoundedBitmapDrawableFactory.create(
-                mContext.getResources(),
-                Bitmap.createScaledBitmap(imageBitmap, scaledWidth, scaledHeight, false));
-        roundDrawable.setCircular(true);
+    private void drawSmallImageComplication(Canvas canvas, ComplicationRenderState renderState) {
+        RoundedBitmapDrawable roundDrawable = renderState.smallImage;
+        if (roundDrawable == null) {
+            return;
+        }
 
+        int scaledWidth = roundDrawable.getBitmap().getWidth();
+        int scaledHeight = roundDrawable.getBitmap().getHeight();
         int startX = (int) (mLeftComplicationX - scaledWidth * 0.5f);
         int startY = (int) (mLeftComplicationY - scaledHeight * 0.5f);
         int finishX = (int) (mLeftComplicationX + scaledWidth * 0.5f);
@@ -326,31 +353,67 @@ class ComplicationsHelper {
     }
 
     /**
-     * Draws ranged value complication.
+     * Draws ranged value complication. The complication is rendered into its layer only when
+     * its data, value, title or ambient state changes; other frames just draw the layer.
      *
-     * @param canvas           on which to draw
-     * @param complicationData to be drawn
-     * @param now              current time in milliseconds
+     * @param canvas      on which to draw
+     * @param now         current time in milliseconds
+     * @param renderState of the complication to be drawn
      */
-    private void drawRangeComplication(Canvas canvas, long now, ComplicationData complicationData) {
+    private void drawRangeComplication(Canvas canvas, long now,
+                                       ComplicationRenderState renderState) {
+        ComplicationData complicationData = renderState.data;
+        ComplicationText shortTitle = complicationData.getShortTitle();
+        CharSequence title = shortTitle != null ? shortTitle.getText(mContext, now) : null;
+
+        if (!mRangeLayerValid
+                || complicationData != mRangeLayerData
+                || complicationData.getValue() != mRangeLayerValue
+                || title != mRangeLayerTitle
+                || mAmbient != mRangeLayerAmbient) {
+            renderRangeComplicationLayer(renderState, title);
+            mRangeLayerValid = true;
+            mRangeLayerData = complicationData;
+            mRangeLayerValue = complicationData.getValue();
+            mRangeLayerTitle = title;
+            mRangeLayerAmbient = mAmbient;
+        }
+
+        /* Draw complication on watch face's canvas */
+        canvas.drawBitmap(mRangeComplicationBitmap,
+                mTopComplicationX - mRangeComplicationBitmap.getWidth() * 0.5f,
+                mBottomComplicationY, null);
+    }
+
+    /**
+     * Renders ranged value complication into its layer.
+     *
+     * @param renderState       of the complication to be drawn
+     * @param shortTitleMessage title text at the current time or null
+     */
+    private void renderRangeComplicationLayer(ComplicationRenderState renderState,
+                                              CharSequence shortTitleMessage) {
+        ComplicationData complicationData = renderState.data;
         // Define complication background and it's size
-        Bitmap bitmap = Bitmap.createBitmap(mRangeComplicationBackground);
-        Canvas complicationCanvas = new Canvas(bitmap);
+        Bitmap bitmap = mRangeComplicationBitmap;
+        Canvas complicationCanvas = mRangeComplicationCanvas;
         float width = (float) bitmap.getWidth();
         float height = (float) bitmap.getHeight();
         float centerX = width * 0.5f;
         float centerY = height * 0.5f;
-        float radius = (width * 0.5f) - 1f;
 
-        ComplicationText shortTitle = complicationData.getShortTitle();
-        Icon icon = complicationData.getIcon();
+        // Start from a clean background
+        bitmap.eraseColor(Color.TRANSPARENT);
+        complicationCanvas.drawBitmap(mRangeComplicationBackground, 0, 0, null);
+        complicationCanvas.save();
+
+        Drawable iconDrawable = renderState.icon;
 
         /* Display complication icon or title if available */
-        if (icon != null) {
-            // Prepare icon drawable
+        if (iconDrawable != null) {
+            // Position icon drawable
             int iconWidth = (int) (width * 0.18f);
             int iconHeight = (int) (height * 0.18f);
-            Drawable iconDrawable = icon.loadDrawable(mContext);
             iconDrawable.setBounds(0, 0, iconWidth, iconHeight);
 
             // Calculate offsets so the icon is drawn centered at desired location
@@ -362,16 +425,18 @@ class ComplicationsHelper {
             iconDrawable.draw(complicationCanvas);
             // Move canvas back to its original position
             complicationCanvas.translate(-offsetX, -offsetY);
-        } else if (shortTitle != null) {
-            // Get short title text &
-            CharSequence shortTitleMessage = shortTitle.getText(mContext, now);
-            String text = shortTitleMessage.toString();
-            text = text.toUpperCase();
-            int endIndex = text.length() < COMPLICATION_TEXT_MAXIMUM_LENGTH ? text.length() : 7;
-            text = text.substring(0, endIndex);
+        } else if (shortTitleMessage != null) {
+            // Get short title text, upper cased only when it changes
+            if (shortTitleMessage != mRangeTitleSource) {
+                String title = shortTitleMessage.toString().toUpperCase();
+                int endIndex = Math.min(title.length(), COMPLICATION_TEXT_MAXIMUM_LENGTH);
+                mRangeTitle = title.substring(0, endIndex);
+                mRangeTitleSource = shortTitleMessage;
+            }
+            String text = mRangeTitle;
 
             // Get text bounds
-            Rect textBounds = new Rect();
+            Rect textBounds = mTextBounds;
             mComplicationTickPaint.getTextBounds(text, 0, text.length(), textBounds);
 
             // Calculate offsets so text is drawn centered at desired location
@@ -402,20 +467,8 @@ class ComplicationsHelper {
                 3f,
                 mComplicationHandPaint);
 
-        // Calculate hand's length
-        float topY = radius + (4f * 0.5f) - 10f;
-        float bottomY = radius * 0.22f;
-
         // Draw hand's pointer
-        Path path = new Path();
-        path.moveTo(centerX - 0.5f, centerY - topY); // Top
-        path.lineTo(centerX - 1f, centerY); // Middle left
-        path.lineTo(centerX - 1.5f, centerY + bottomY); // Bottom left
-        path.lineTo(centerX + 1.5f, centerY + bottomY); // Bottom right
-        path.lineTo(centerX + 1f, centerY); // Middle right
-        path.lineTo(centerX + 0.5f, centerY - topY); // Back to Top
-        path.close();
-        complicationCanvas.drawPath(path, mComplicationHandPaint);
+        complicationCanvas.drawPath(mRangeHandPath, mComplicationHandPaint);
 
         // Draw hand's top circle without shadow
         mComplicationHandPaint.clearShadowLayer();
@@ -426,9 +479,7 @@ class ComplicationsHelper {
                 mComplicationHandPaint);
         mComplicationHandPaint.setShadowLayer(COMPLICATION_SECONDARY_SHADOW_RADIUS, 0, 0,
                 mContext.getColor(R.color.shadow_light));
-
-        /* Draw complication on watch face's canvas */
-        canvas.drawBitmap(bitmap, mTopComplicationX - width * 0.5f, mBottomComplicationY, null);
+        complicationCanvas.restore();
     }
 
     // Fires PendingIntent associated with complication (if it has one).
@@ -469,59 +520,36 @@ class ComplicationsHelper {
     * Determines if tap inside a complication area or returns -1.
     */
     int getTappedComplicationId(int touchX, int touchY) {
-        ComplicationData complicationData;
-        long currentTimeMillis = System.currentTimeMillis();
-
-        for (int COMPLICATION_ID : COMPLICATION_IDS) {
-            complicationData = mActiveComplicationDataSparseArray.get(COMPLICATION_ID);
-
-            if ((complicationData != null)
-                    && (complicationData.isActive(currentTimeMillis))
-                    && (complicationData.getType() != ComplicationData.TYPE_NOT_CONFIGURED)
-                    && (complicationData.getType() != ComplicationData.TYPE_EMPTY)) {
-
-                float complicationX = 0;
-                float complicationY = 0;
-                float radius = 0;
-
-                switch (COMPLICATION_ID) {
-                    case TOP_DIAL_COMPLICATION:
-                        radius = mComplicationRadius;
-                        complicationX = mTopComplicationX;
-                        complicationY = mTopComplicationY + radius;
-                        break;
-
-                    case LEFT_DIAL_COMPLICATION:
-                        radius = (mBackgroundWidth * 0.5f * 0.35f) / 2f;
-                        complicationX = mLeftComplicationX;
-                        complicationY = mLeftComplicationY;
-                        break;
-
-                    case BOTTOM_DIAL_COMPLICATION:
-                        radius = mComplicationRadius;
-                        complicationX = mTopComplicationX;
-                        complicationY = mBottomComplicationY + radius;
-                        break;
-
-                    default:
-                        break;
-                }
-
-                // Distance between two points formula
-                float touchRadius = (float) Math.sqrt(Math.pow(complicationX - touchX, 2f)
-                        + Math.pow(complicationY - touchY, 2f));
+        int complicationId = mHitTestIndex.findRegion(touchX, touchY);
+        if (complicationId == -1) {
+            return -1;
+        }
 
-                if (touchRadius < radius) {
-                    Log.d(TAG, "getTappedComplicationId: " + COMPLICATION_ID);
-                    return COMPLICATION_ID;
-                } else {
-                    Log.e(TAG, "Not a recognized complication id.");
-                }
-            }
+        ComplicationData complicationData = mActiveComplicationDataSparseArray.get(complicationId);
+        if ((complicationData != null)
+                && (complicationData.isActive(System.currentTimeMillis()))
+                && (complicationData.getType() != ComplicationData.TYPE_NOT_CONFIGURED)
+                && (complicationData.getType() != ComplicationData.TYPE_EMPTY)) {
+            Log.d(TAG, "getTappedComplicationId: " + complicationId);
+            return complicationId;
         }
         return -1;
     }
 
+    /**
+     * Rebuilds tappable areas of the complications.
+     */
+    private void buildHitTestIndex() {
+        mHitTestIndex.reset(mBackgroundWidth, mBackgroundHeight);
+        mHitTestIndex.addCircle(TOP_DIAL_COMPLICATION, mTopComplicationX,
+                mTopComplicationY + mComplicationRadius, mComplicationRadius);
+        mHitTestIndex.addCircle(LEFT_DIAL_COMPLICATION, mLeftComplicationX, mLeftComplicationY,
+                (mBackgroundWidth * 0.5f * 0.35f) / 2f);
+        mHitTestIndex.addCircle(BOTTOM_DIAL_COMPLICATION, mTopComplicationX,
+                mBottomComplicationY + mComplicationRadius, mComplicationRadius);
+        mHitTestIndex.build();
+    }
+
     /**
      * Adds/updates active complication data in the array.
      *
@@ -529,7 +557,121 @@ class ComplicationsHelper {
      * @param data                    complication data
      */
     void updateComplicationsArray(int watchFaceComplicationId, ComplicationData data) {
+        mRequestedData.put(watchFaceComplicationId, data);
+        setRenderState(watchFaceComplicationId, data, data != null
+                ? ComplicationRenderState.prepare(mContext, data, mBackgroundWidth,
+                mBackgroundHeight) : null);
+    }
+
+    /**
+     * Prepares render state of the complication data on a worker thread and swaps it in on the
+     * UI thread once ready, so loading and scaling images never delays a frame. The listener
+     * is notified after the swap.
+     *
+     * @param watchFaceComplicationId id of the complication to update
+     * @param data                    complication data
+     */
+    void prepareComplicationDataAsync(final int watchFaceComplicationId,
+                                      final ComplicationData data) {
+        mRequestedData.put(watchFaceComplicationId, data);
+        if (data == null) {
+            setRenderState(watchFaceComplicationId, null, null);
+            notifyComplicationPrepared(watchFaceComplicationId);
+            return;
+        }
+
+        final Context context = mContext;
+        final int width = mBackgroundWidth;
+        final int height = mBackgroundHeight;
+        sPreparationExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final ComplicationRenderState renderState =
+                        ComplicationRenderState.prepare(context, data, width, height);
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        onRenderStatePrepared(watchFaceComplicationId, renderState);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Swaps in render state prepared on the worker thread, unless newer data has arrived or
+     * watch face size has changed in the meantime.
+     */
+    private void onRenderStatePrepared(int watchFaceComplicationId,
+                                       ComplicationRenderState renderState) {
+        if (mRequestedData.get(watchFaceComplicationId) != renderState.data) {
+            mDroppedCount++;
+            Log.d(TAG, "Outdated complication render state dropped, " + getPreparationStats());
+            return;
+        }
+        if (renderState.surfaceWidth != mBackgroundWidth
+                || renderState.surfaceHeight != mBackgroundHeight) {
+            mDroppedCount++;
+            prepareComplicationDataAsync(watchFaceComplicationId, renderState.data);
+            return;
+        }
+        setRenderState(watchFaceComplicationId, renderState.data, renderState);
+        notifyComplicationPrepared(watchFaceComplicationId);
+    }
+
+    private void setRenderState(int watchFaceComplicationId, ComplicationData data,
+                                ComplicationRenderState renderState) {
         mActiveComplicationDataSparseArray.put(watchFaceComplicationId, data);
+        mRenderStates.put(watchFaceComplicationId, renderState);
+        if (watchFaceComplicationId == BOTTOM_DIAL_COMPLICATION) {
+            mRangeLayerValid = false;
+        }
+        if (renderState != null) {
+            mPreparedCount++;
+            mPrepareTotalNanos += renderState.prepareNanos;
+        }
+    }
+
+    private void notifyComplicationPrepared(int watchFaceComplicationId) {
+        if (mOnComplicationPreparedListener != null) {
+            mOnComplicationPreparedListener.onComplicationPrepared(watchFaceComplicationId);
+        }
+    }
+
+    /**
+     * Sets listener notified when prepared complication has been swapped in.
+     *
+     * @param listener Listener or null
+     */
+    void setOnComplicationPreparedListener(OnComplicationPreparedListener listener) {
+        mOnComplicationPreparedListener = listener;
+    }
+
+    /**
+     * Drops results of preparations still in progress. Has to be called when the watch face
+     * is destroyed.
+     */
+    void cancelPendingPreparations() {
+        mRequestedData.clear();
+        mOnComplicationPreparedListener = null;
+    }
+
+    /**
+     * Returns statistics of complication render state preparation, for debugging.
+     */
+    String getPreparationStats() {
+        long averageMicros = mPreparedCount > 0 ? mPrepareTotalNanos / mPreparedCount / 1000 : 0;
+        return "prepared " + mPreparedCount + ", avg " + averageMicros + " us, dropped "
+                + mDroppedCount;
+    }
+
+    /**
+     * Sets receiver of complications' draw cost.
+     *
+     * @param frameStats Frame statistics of the watch face
+     */
+    void setFrameStats(FrameStats frameStats) {
+        mFrameStats = frameStats;
     }
 
     /**
@@ -538,6 +680,7 @@ class ComplicationsHelper {
      * @param inAmbientMode true if device is in ambient mode
      */
     void setAmbientMode(boolean inAmbientMode) {
+        mAmbient = inAmbientMode;
         mComplicationPaint.setAntiAlias(!inAmbientMode);
     }
 
@@ -558,6 +701,51 @@ class ComplicationsHelper {
         mBottomComplicationY = (mBackgroundHeight / 2) + (int) (0.3f * mComplicationRadius);
         mTextComplicationBackground = createComplicationBackground(mComplicationRadius);
         mRangeComplicationBackground = createRangeComplicationBackground(mTextComplicationBackground);
+        buildHitTestIndex();
+
+        // Prepare objects reused by every frame
+        mRangeComplicationBitmap = Bitmap.createBitmap(mRangeComplicationBackground.getWidth(),
+                mRangeComplicationBackground.getHeight(), Bitmap.Config.ARGB_8888);
+        mRangeComplicationCanvas = new Canvas(mRangeComplicationBitmap);
+        mRangeLayerValid = false;
+        mTextLayoutCache.invalidate();
+        createRangeHandPath(mRangeHandPath, mRangeComplicationBitmap.getWidth(),
+                mRangeComplicationBitmap.getHeight());
+        // Drawables are scaled to the watch face size, prepare them again for the new size
+        for (int i = 0; i < mRenderStates.size(); i++) {
+            ComplicationRenderState renderState = mRenderStates.valueAt(i);
+            if (renderState != null && (renderState.surfaceWidth != backgroundWidth
+                    || renderState.surfaceHeight != backgroundHeight)) {
+                mRenderStates.setValueAt(i, ComplicationRenderState.prepare(mContext,
+                        renderState.data, backgroundWidth, backgroundHeight));
+            }
+        }
+    }
+
+    /**
+     * Creates outline of ranged value complication's hand, pointing up.
+     *
+     * @param path   Destination path
+     * @param width  Width of the complication
+     * @param height Height of the complication
+     */
+    private static void createRangeHandPath(Path path, float width, float height) {
+        float centerX = width * 0.5f;
+        float centerY = height * 0.5f;
+        float radius = (width * 0.5f) - 1f;
+
+        // Calculate hand's length
+        float topY = radius + (4f * 0.5f) - 10f;
+        float bottomY = radius * 0.22f;
+
+        path.reset();
+        path.moveTo(centerX - 0.5f, centerY - topY); // Top
+        path.lineTo(centerX - 1f, centerY); // Middle left
+        path.lineTo(centerX - 1.5f, centerY + bottomY); // Bottom left
+        path.lineTo(centerX + 1.5f, centerY + bottomY); // Bottom right
+        path.lineTo(centerX + 1f, centerY); // Middle right
+        path.lineTo(centerX + 0.5f, centerY - topY); // Back to Top
+        path.close();
     }
 
     /**
@@ -694,40 +882,4 @@ class ComplicationsHelper {
 
         return bitmap;
     }
-
-    /**
-     * Sets the text size for a Paint object so a given string of text will be a
-     * given height.
-     *
-     * Credit to Michael Scheper at:
-     * http://stackoverflow.com/questions/12166476/android-canvas-drawtext-set-font-size-from-width
-     * ?answertab=active#tab-top
-     *
-     * @param paint        the Paint to set the text size for
-     * @param desiredHeight the desired height
-     * @param text         the text that should be that width
-     */
-    private static void setTextSize(Paint paint, float desiredWidth, float desiredHeight,
-                                    String text) {
-
-        // Pick a reasonably large value for the test. Larger values produce
-        // more accurate results, but may cause problems with hardware
-        // acceleration. But there are workarounds for that, too; refer to
-        // http://stackoverflow.com/questions/6253528/font-size-too-large-to-fit-in-cache
-        final float testTextSize = COMPLICATION_PRIMARY_FONT_SIZE;
-
-        // Get the bounds of the text, using our testTextSize.
-        paint.setTextSize(testTextSize);
-        Rect bounds = new Rect();
-        paint.getTextBounds(text, 0, text.length(), bounds);
-
-        // Calculate the desired size as a proportion of our testTextSize.
-        float desiredTextSizeByHeight = testTextSize * desiredHeight / bounds.height();
-        float desiredTextSizeByWidth = testTextSize * desiredWidth / bounds.width();
-
-        float desiredTextSize = desiredTextSizeByWidth > desiredTextSizeByHeight ?
-                desiredTextSizeByHeight : desiredTextSizeByWidth;
-        // Set the paint for that size.
-        paint.setTextSize(desiredTextSize);
-    }
 }
@@ -0,0 +1,102 @@
+package com.example.android.sunshine;
+
+/**
+ * Chooses interactive update rate of the watch face. With smooth second hand enabled the watch
+ * face is redrawn many times a second, falling back to a tick a second (and slower) whenever
+ * frames cost too much of the frame interval or the battery is low.
+ */
+class FrameRateController {
+
+    // Available update intervals in milliseconds, fastest first
+    static final long[] UPDATE_RATES_MS = {33, 66, 1000, 2000};
+    // Interval of a regular ticking second hand
+    private static final int TICK_LEVEL = 2;
+    private static final int SLOWEST_LEVEL = UPDATE_RATES_MS.length - 1;
+
+    // Share of the frame interval drawing may take on average
+    private static final float FRAME_COST_BUDGET = 0.1f;
+    // Weight of the newest frame in the average frame cost
+    private static final float FRAME_COST_SMOOTHING = 0.1f;
+    // Frames with cost well within the faster rate's budget required to speed up again
+    private static final int FRAMES_BEFORE_SPEED_UP = 300;
+
+    // Battery levels (percent) limiting the update rate when not charging
+    private static final int LOW_BATTERY_PERCENT = 20;
+    private static final int CRITICAL_BATTERY_PERCENT = 5;
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private boolean mSweepEnabled;
+    private int mBatteryPercent = 100;
+    private boolean mCharging;
+
+    // Slowest level frame cost has pushed the rate to
+    private int mBudgetLevel;
+    private float mAverageFrameCostNanos;
+    private int mCheapFrames;
+
+    void setSweepEnabled(boolean enabled) {
+        mSweepEnabled = enabled;
+    }
+
+    boolean isSweepEnabled() {
+        return mSweepEnabled;
+    }
+
+    /**
+     * Updates battery state.
+     *
+     * @param percent  Battery level in percent
+     * @param charging true if device is charging
+     */
+    void onBatteryChanged(int percent, boolean charging) {
+        mBatteryPercent = percent;
+        mCharging = charging;
+    }
+
+    /**
+     * Records cost of an interactive frame and slows down or speeds up the rate accordingly.
+     *
+     * @param costNanos Draw duration in nanoseconds
+     */
+    void onFrameDrawn(long costNanos) {
+        mAverageFrameCostNanos += (costNanos - mAverageFrameCostNanos) * FRAME_COST_SMOOTHING;
+
+        int level = getLevel();
+        if (mAverageFrameCostNanos > getBudgetNanos(level) && mBudgetLevel < SLOWEST_LEVEL) {
+            // Over budget, slow down
+            mBudgetLevel = Math.max(mBudgetLevel, level) + 1;
+            mCheapFrames = 0;
+        } else if (mBudgetLevel > 0
+                && mAverageFrameCostNanos < getBudgetNanos(mBudgetLevel - 1) * 0.5f) {
+            // Speed up only after frames have stayed cheap for a while
+            if (++mCheapFrames >= FRAMES_BEFORE_SPEED_UP) {
+                mBudgetLevel--;
+                mCheapFrames = 0;
+            }
+        } else {
+            mCheapFrames = 0;
+        }
+    }
+
+    /**
+     * Returns interval between interactive frames in milliseconds.
+     */
+    long getUpdateRateMs() {
+        return UPDATE_RATES_MS[getLevel()];
+    }
+
+    private int getLevel() {
+        int level = mSweepEnabled ? 0 : TICK_LEVEL;
+        if (!mCharging && mBatteryPercent <= CRITICAL_BATTERY_PERCENT) {
+            level = SLOWEST_LEVEL;
+        } else if (!mCharging && mBatteryPercent <= LOW_BATTERY_PERCENT) {
+            level = Math.max(level, TICK_LEVEL);
+        }
+        return Math.max(level, mBudgetLevel);
+    }
+
+    private static float getBudgetNanos(int level) {
+        return UPDATE_RATES_MS[level] * NANOS_PER_MILLI * FRAME_COST_BUDGET;
+    }
+}
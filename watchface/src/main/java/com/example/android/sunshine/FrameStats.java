@@ -0,0 +1,215 @@
+package com.example.android.sunshine;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import java.io.PrintWriter;
+import java.util.Locale;
+
+/**
+ * Collects draw durations of watch face frames per mode, update timer delays, complication
+ * draw costs and engine creation times. Recording does not allocate, so it is always on;
+ * results are printed by {@link #dump(PrintWriter)} and optionally drawn on the watch face.
+ */
+class FrameStats {
+
+    /**
+     * Modes frames are recorded for
+     */
+    static final int MODE_INTERACTIVE = 0;
+    static final int MODE_AMBIENT = 1;
+    static final int MODE_LOW_BIT_AMBIENT = 2;
+    static final int MODE_BURN_IN_AMBIENT = 3;
+    private static final String[] MODE_NAMES = {"interactive", "ambient", "low-bit ambient",
+            "burn-in ambient"};
+
+    // Upper bounds of histogram buckets in milliseconds, last bucket holds longer frames
+    private static final int[] BUCKET_LIMITS_MS = {1, 2, 4, 8, 16, 33};
+
+    // Update timer firing later than this missed its deadline
+    private static final long MISSED_DEADLINE_TOLERANCE_MS = 100;
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private final long[] mFrameCount = new long[MODE_NAMES.length];
+    private final long[] mFrameTotalNanos = new long[MODE_NAMES.length];
+    private final long[] mFrameMaxNanos = new long[MODE_NAMES.length];
+    private final long[][] mHistogram = new long[MODE_NAMES.length][BUCKET_LIMITS_MS.length + 1];
+
+    private final long[] mComplicationCount;
+    private final long[] mComplicationTotalNanos;
+    private final long[] mComplicationMaxNanos;
+
+    private long mEngineCount;
+    private long mFirstEngineNanos;
+    private long mLastEngineNanos;
+
+    private long mUpdateCount;
+    private long mMissedDeadlineCount;
+    private long mMaxUpdateDelayMs;
+
+    private volatile boolean mOverlayEnabled;
+
+    /**
+     * @param complications Number of complication ids
+     */
+    FrameStats(int complications) {
+        mComplicationCount = new long[complications];
+        mComplicationTotalNanos = new long[complications];
+        mComplicationMaxNanos = new long[complications];
+    }
+
+    /**
+     * Records duration of a drawn frame.
+     *
+     * @param mode          Mode the frame was drawn in
+     * @param durationNanos Draw duration in nanoseconds
+     */
+    synchronized void onFrameDrawn(int mode, long durationNanos) {
+        mFrameCount[mode]++;
+        mFrameTotalNanos[mode] += durationNanos;
+        mFrameMaxNanos[mode] = Math.max(mFrameMaxNanos[mode], durationNanos);
+
+        int bucket = 0;
+        while (bucket < BUCKET_LIMITS_MS.length
+                && durationNanos >= BUCKET_LIMITS_MS[bucket] * NANOS_PER_MILLI) {
+            bucket++;
+        }
+        mHistogram[mode][bucket]++;
+    }
+
+    /**
+     * Records cost of drawing a single complication.
+     *
+     * @param complicationId Id of the complication
+     * @param durationNanos  Draw duration in nanoseconds
+     */
+    synchronized void onComplicationDrawn(int complicationId, long durationNanos) {
+        mComplicationCount[complicationId]++;
+        mComplicationTotalNanos[complicationId] += durationNanos;
+        mComplicationMaxNanos[complicationId] =
+                Math.max(mComplicationMaxNanos[complicationId], durationNanos);
+    }
+
+    /**
+     * Records time it took to create a watch face engine.
+     *
+     * @param durationNanos Duration of engine's onCreate in nanoseconds
+     */
+    synchronized void onEngineCreated(long durationNanos) {
+        if (mEngineCount == 0) {
+            mFirstEngineNanos = durationNanos;
+        }
+        mEngineCount++;
+        mLastEngineNanos = durationNanos;
+    }
+
+    /**
+     * Records arrival of the interactive update timer message.
+     *
+     * @param scheduledTimeMs Time the message was scheduled for in milliseconds
+     * @param nowMs           Time the message arrived in milliseconds
+     */
+    synchronized void onUpdateTimeMessage(long scheduledTimeMs, long nowMs) {
+        long delayMs = nowMs - scheduledTimeMs;
+        mUpdateCount++;
+        mMaxUpdateDelayMs = Math.max(mMaxUpdateDelayMs, delayMs);
+        if (delayMs > MISSED_DEADLINE_TOLERANCE_MS) {
+            mMissedDeadlineCount++;
+        }
+    }
+
+    /**
+     * Clears all recorded data.
+     */
+    synchronized void reset() {
+        for (int mode = 0; mode < MODE_NAMES.length; mode++) {
+            mFrameCount[mode] = 0;
+            mFrameTotalNanos[mode] = 0;
+            mFrameMaxNanos[mode] = 0;
+            for (int bucket = 0; bucket < mHistogram[mode].length; bucket++) {
+                mHistogram[mode][bucket] = 0;
+            }
+        }
+        for (int id = 0; id < mComplicationCount.length; id++) {
+            mComplicationCount[id] = 0;
+            mComplicationTotalNanos[id] = 0;
+            mComplicationMaxNanos[id] = 0;
+        }
+        mUpdateCount = 0;
+        mMissedDeadlineCount = 0;
+        mMaxUpdateDelayMs = 0;
+    }
+
+    boolean isOverlayEnabled() {
+        return mOverlayEnabled;
+    }
+
+    void setOverlayEnabled(boolean enabled) {
+        mOverlayEnabled = enabled;
+    }
+
+    /**
+     * Prints recorded data.
+     *
+     * @param writer Destination writer
+     */
+    synchronized void dump(PrintWriter writer) {
+        writer.println("Frame stats");
+        for (int mode = 0; mode < MODE_NAMES.length; mode++) {
+            if (mFrameCount[mode] == 0) {
+                continue;
+            }
+            writer.println("  " + MODE_NAMES[mode] + ": " + mFrameCount[mode] + " frames, avg "
+                    + formatMillis(mFrameTotalNanos[mode] / mFrameCount[mode]) + ", max "
+                    + formatMillis(mFrameMaxNanos[mode]));
+            StringBuilder histogram = new StringBuilder("   ");
+            for (int bucket = 0; bucket < mHistogram[mode].length; bucket++) {
+                histogram.append(bucket < BUCKET_LIMITS_MS.length
+                        ? " <" + BUCKET_LIMITS_MS[bucket] + "ms: "
+                        : " >=" + BUCKET_LIMITS_MS[bucket - 1] + "ms: ");
+                histogram.append(mHistogram[mode][bucket]);
+            }
+            writer.println(histogram);
+        }
+        if (mEngineCount > 0) {
+            writer.println("  Engine creation: " + mEngineCount + " engines, first "
+                    + formatMillis(mFirstEngineNanos) + ", last " + formatMillis(mLastEngineNanos)
+                    + ", resources " + WatchFaceResources.getStats());
+        }
+        writer.println("  Update timer: " + mUpdateCount + " ticks, " + mMissedDeadlineCount
+                + " missed deadlines, max delay " + mMaxUpdateDelayMs + " ms");
+        for (int id = 0; id < mComplicationCount.length; id++) {
+            if (mComplicationCount[id] == 0) {
+                continue;
+            }
+            writer.println("  Complication " + id + ": " + mComplicationCount[id]
+                    + " draws, avg " + formatMillis(mComplicationTotalNanos[id]
+                    / mComplicationCount[id]) + ", max " + formatMillis(mComplicationMaxNanos[id]));
+        }
+    }
+
+    /**
+     * Draws summary of the given mode at the top of the watch face. Meant for debugging only,
+     * since it allocates.
+     *
+     * @param canvas Watch face canvas
+     * @param mode   Current mode
+     * @param paint  Text paint
+     * @param x      Horizontal center of the text
+     * @param y      Baseline of the first line
+     */
+    synchronized void drawOverlay(Canvas canvas, int mode, Paint paint, float x, float y) {
+        long count = Math.max(mFrameCount[mode], 1);
+        String frames = MODE_NAMES[mode] + " " + formatMillis(mFrameTotalNanos[mode] / count)
+                + " / " + formatMillis(mFrameMaxNanos[mode]);
+        String updates = "missed " + mMissedDeadlineCount + " of " + mUpdateCount;
+        float lineHeight = paint.getTextSize() * 1.2f;
+        canvas.drawText(frames, x - paint.measureText(frames) * 0.5f, y, paint);
+        canvas.drawText(updates, x - paint.measureText(updates) * 0.5f, y + lineHeight, paint);
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format(Locale.US, "%.2f ms", nanos / (double) NANOS_PER_MILLI);
+    }
+}
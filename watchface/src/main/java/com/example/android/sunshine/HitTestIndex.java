@@ -0,0 +1,149 @@
+package com.example.android.sunshine;
+
+import java.util.Arrays;
+
+/**
+ * Resolves taps to circular regions of the watch face. Regions are bucketed into a uniform grid
+ * once, when the layout changes, so a lookup only tests the few regions overlapping the tapped
+ * cell, regardless of how many regions there are. Lookups do not allocate.
+ */
+class HitTestIndex {
+    // Number of grid cells along the longer side of the watch face
+    private static final int GRID_CELLS = 32;
+    private static final int INITIAL_CAPACITY = 8;
+
+    // Regions in the order they were added, earlier regions win where regions overlap
+    private int[] mIds = new int[INITIAL_CAPACITY];
+    private float[] mCenterX = new float[INITIAL_CAPACITY];
+    private float[] mCenterY = new float[INITIAL_CAPACITY];
+    private float[] mRadius = new float[INITIAL_CAPACITY];
+    private int mRegionCount;
+
+    // Grid in compressed form: regions of cell i are mCellRegions[mCellStart[i]..mCellStart[i+1])
+    private int[] mCellStart = new int[1];
+    private int[] mCellRegions = new int[0];
+    private int mColumns;
+    private int mRows;
+    private float mCellSize = 1f;
+
+    /**
+     * Removes all regions and sets size of the indexed area.
+     *
+     * @param width  Width of the watch face
+     * @param height Height of the watch face
+     */
+    void reset(int width, int height) {
+        mRegionCount = 0;
+        mCellSize = Math.max(1f, Math.max(width, height) / (float) GRID_CELLS);
+        mColumns = Math.max(1, (int) Math.ceil(width / mCellSize));
+        mRows = Math.max(1, (int) Math.ceil(height / mCellSize));
+        mCellStart = new int[mColumns * mRows + 1];
+        mCellRegions = new int[0];
+    }
+
+    /**
+     * Adds circular region. {@link #build()} has to be called after all regions are added.
+     *
+     * @param id      Id returned when the region is hit
+     * @param centerX Horizontal center of the region
+     * @param centerY Vertical center of the region
+     * @param radius  Radius of the region
+     */
+    void addCircle(int id, float centerX, float centerY, float radius) {
+        if (mRegionCount == mIds.length) {
+            int capacity = mIds.length * 2;
+            mIds = Arrays.copyOf(mIds, capacity);
+            mCenterX = Arrays.copyOf(mCenterX, capacity);
+            mCenterY = Arrays.copyOf(mCenterY, capacity);
+            mRadius = Arrays.copyOf(mRadius, capacity);
+        }
+        mIds[mRegionCount] = id;
+        mCenterX[mRegionCount] = centerX;
+        mCenterY[mRegionCount] = centerY;
+        mRadius[mRegionCount] = radius;
+        mRegionCount++;
+    }
+
+    /**
+     * Buckets added regions into grid cells they overlap.
+     */
+    void build() {
+        int cellCount = mColumns * mRows;
+        int[] counts = new int[cellCount + 1];
+
+        // Count regions per cell, then turn counts into start offsets
+        for (int region = 0; region < mRegionCount; region++) {
+            for (int row = firstRow(region); row <= lastRow(region); row++) {
+                for (int column = firstColumn(region); column <= lastColumn(region); column++) {
+                    counts[row * mColumns + column + 1]++;
+                }
+            }
+        }
+        for (int cell = 0; cell < cellCount; cell++) {
+            counts[cell + 1] += counts[cell];
+        }
+        mCellStart = counts;
+        mCellRegions = new int[counts[cellCount]];
+
+        // Fill cells in region order, so earlier regions are tested first
+        int[] fill = Arrays.copyOf(counts, cellCount);
+        for (int region = 0; region < mRegionCount; region++) {
+            for (int row = firstRow(region); row <= lastRow(region); row++) {
+                for (int column = firstColumn(region); column <= lastColumn(region); column++) {
+                    mCellRegions[fill[row * mColumns + column]++] = region;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns id of the region containing given point or -1 if there is none.
+     *
+     * @param x Horizontal coordinate of the tap
+     * @param y Vertical coordinate of the tap
+     */
+    int findRegion(int x, int y) {
+        int column = (int) (x / mCellSize);
+        int row = (int) (y / mCellSize);
+        if (x < 0 || y < 0 || column >= mColumns || row >= mRows) {
+            return -1;
+        }
+        int cell = row * mColumns + column;
+        for (int i = mCellStart[cell]; i < mCellStart[cell + 1]; i++) {
+            int region = mCellRegions[i];
+            float dx = mCenterX[region] - x;
+            float dy = mCenterY[region] - y;
+            if (dx * dx + dy * dy < mRadius[region] * mRadius[region]) {
+                return mIds[region];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns number of added regions.
+     */
+    int getRegionCount() {
+        return mRegionCount;
+    }
+
+    private int firstColumn(int region) {
+        return clamp((int) ((mCenterX[region] - mRadius[region]) / mCellSize), mColumns);
+    }
+
+    private int lastColumn(int region) {
+        return clamp((int) ((mCenterX[region] + mRadius[region]) / mCellSize), mColumns);
+    }
+
+    private int firstRow(int region) {
+        return clamp((int) ((mCenterY[region] - mRadius[region]) / mCellSize), mRows);
+    }
+
+    private int lastRow(int region) {
+        return clamp((int) ((mCenterY[region] + mRadius[region]) / mCellSize), mRows);
+    }
+
+    private static int clamp(int index, int count) {
+        return Math.max(0, Math.min(index, count - 1));
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.android.sunshine;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.content.pm.ServiceInfo;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.SparseArray;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads what {@link WatchFaceConfigActivity} shows for each complication slot: preview icons and
+ * label of the slot's default provider. Loading happens on a worker thread and results are
+ * delivered on the UI thread. Icons are kept in memory for the lifetime of the process, provider
+ * labels are also stored in shared preferences, so later launches show them right away.
+ */
+final class ProviderInfoLoader {
+    private static final String TAG = ProviderInfoLoader.class.getSimpleName();
+
+    private static final String PREFERENCES_NAME = "provider_info";
+    // Stored labels are dropped when the app is updated
+    private static final String KEY_VERSION = "version";
+
+    // Loads one item at a time, in the order requested
+    private static final ExecutorService sExecutor = Executors.newSingleThreadExecutor();
+    private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+
+    // Loaded icons keyed by resource id, new drawables are created from their constant state
+    private static final SparseArray<Drawable.ConstantState> sIcons = new SparseArray<>();
+    // Loaded provider labels keyed by flattened component name
+    private static final Map<String, String> sLabels = new HashMap<>();
+
+    /**
+     * Receives loaded icon.
+     */
+    interface IconCallback {
+        void onIconLoaded(int resId, Drawable icon);
+    }
+
+    /**
+     * Receives loaded provider label.
+     */
+    interface LabelCallback {
+        void onLabelLoaded(ComponentName provider, String label);
+    }
+
+    private ProviderInfoLoader() {}
+
+    /**
+     * Returns icon if it has been loaded before, null otherwise.
+     *
+     * @param context Application's context
+     * @param resId   Drawable resource id
+     */
+    static Drawable getCachedIcon(Context context, int resId) {
+        Drawable.ConstantState state;
+        synchronized (sIcons) {
+            state = sIcons.get(resId);
+        }
+        return state != null ? state.newDrawable(context.getResources()) : null;
+    }
+
+    /**
+     * Loads icon on the worker thread.
+     *
+     * @param context  Application's context
+     * @param resId    Drawable resource id
+     * @param callback Receives the icon on the UI thread
+     */
+    static void loadIconAsync(final Context context, final int resId,
+                              final IconCallback callback) {
+        sExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Drawable icon = getCachedIcon(context, resId);
+                if (icon == null) {
+                    icon = context.getDrawable(resId);
+                    if (icon == null) {
+                        return;
+                    }
+                    synchronized (sIcons) {
+                        sIcons.put(resId, icon.getConstantState());
+                    }
+                }
+                final Drawable result = icon;
+                sMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onIconLoaded(resId, result);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Returns label of the provider if it has been loaded before, null otherwise.
+     *
+     * @param provider Provider service
+     */
+    static String getCachedLabel(ComponentName provider) {
+        synchronized (sLabels) {
+            return sLabels.get(provider.flattenToString());
+        }
+    }
+
+    /**
+     * Loads label of the provider on the worker thread, from shared preferences or the package
+     * manager.
+     *
+     * @param context  Application's context
+     * @param provider Provider service
+     * @param callback Receives the label on the UI thread
+     */
+    static void loadLabelAsync(final Context context, final ComponentName provider,
+                               final LabelCallback callback) {
+        sExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final String label = loadLabel(context, provider);
+                if (label == null) {
+                    return;
+                }
+                sMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onLabelLoaded(provider, label);
+                    }
+                });
+            }
+        });
+    }
+
+    private static String loadLabel(Context context, ComponentName provider) {
+        String key = provider.flattenToString();
+        String label = getCachedLabel(provider);
+        if (label != null) {
+            return label;
+        }
+
+        SharedPreferences preferences =
+                context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+        if (preferences.getInt(KEY_VERSION, 0) == BuildConfig.VERSION_CODE) {
+            label = preferences.getString(key, null);
+        }
+        if (label == null) {
+            try {
+                PackageManager packageManager = context.getPackageManager();
+                ServiceInfo serviceInfo = packageManager.getServiceInfo(provider, 0);
+                label = serviceInfo.loadLabel(packageManager).toString();
+            } catch (PackageManager.NameNotFoundException e) {
+                Log.w(TAG, "Provider not found: " + key);
+                return null;
+            }
+            SharedPreferences.Editor editor = preferences.edit();
+            if (preferences.getInt(KEY_VERSION, 0) != BuildConfig.VERSION_CODE) {
+                editor.clear().putInt(KEY_VERSION, BuildConfig.VERSION_CODE);
+            }
+            editor.putString(key, label).apply();
+        }
+
+        synchronized (sLabels) {
+            sLabels.put(key, label);
+        }
+        return label;
+    }
+}
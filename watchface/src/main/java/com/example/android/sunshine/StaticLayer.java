@@ -0,0 +1,104 @@
+package com.example.android.sunshine;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+
+/**
+ * Cached layer holding everything on the watch face that does not move: background and
+ * complications. The layer is rebuilt only when it is invalidated or expires, so regular frames
+ * draw a single bitmap followed by the hands. Also used to hold complete ambient frames.
+ */
+class StaticLayer {
+    // Layer expiry for content that only changes on invalidation
+    static final long NEVER_EXPIRES = Long.MAX_VALUE;
+
+    private Bitmap.Config mConfig = Bitmap.Config.ARGB_8888;
+    private Bitmap mBitmap;
+    private Canvas mCanvas;
+    private boolean mValid;
+    private long mValidUntil;
+    private int mRebuildCount;
+
+    /**
+     * Allocates layer matching watch face size and invalidates it.
+     *
+     * @param width  Width of the watch face
+     * @param height Height of the watch face
+     */
+    void onSurfaceChanged(int width, int height) {
+        if (mBitmap == null || mBitmap.getWidth() != width || mBitmap.getHeight() != height) {
+            mBitmap = Bitmap.createBitmap(width, height, mConfig);
+            mCanvas = new Canvas(mBitmap);
+        }
+        mValid = false;
+    }
+
+    /**
+     * Sets pixel format of the layer, reallocating it if the layer exists already. Opaque
+     * content can use {@link Bitmap.Config#RGB_565}, which takes half the memory and is
+     * faster to draw.
+     *
+     * @param config Bitmap config of the layer
+     */
+    void setConfig(Bitmap.Config config) {
+        if (mConfig == config) {
+            return;
+        }
+        mConfig = config;
+        if (mBitmap != null) {
+            int width = mBitmap.getWidth();
+            int height = mBitmap.getHeight();
+            mBitmap = null;
+            onSurfaceChanged(width, height);
+        }
+        mValid = false;
+    }
+
+    /**
+     * Marks layer content as outdated. Has to be called when background, complication data or
+     * ambient mode changes.
+     */
+    void invalidate() {
+        mValid = false;
+    }
+
+    /**
+     * Returns true if layer content can be drawn at given time.
+     *
+     * @param now Current time in milliseconds
+     */
+    boolean isValid(long now) {
+        return mValid && now < mValidUntil;
+    }
+
+    /**
+     * Clears the layer and returns canvas on which its content should be drawn.
+     *
+     * @param validUntil Time in milliseconds when the content has to be drawn again, or
+     *                   {@link #NEVER_EXPIRES}
+     */
+    Canvas beginRebuild(long validUntil) {
+        mBitmap.eraseColor(Color.TRANSPARENT);
+        mValid = true;
+        mValidUntil = validUntil;
+        mRebuildCount++;
+        return mCanvas;
+    }
+
+    /**
+     * Draws the layer.
+     *
+     * @param canvas Watch face canvas
+     */
+    void draw(Canvas canvas) {
+        canvas.drawBitmap(mBitmap, 0, 0, null);
+    }
+
+    /**
+     * Returns number of times the layer has been rebuilt, for debugging.
+     */
+    int getRebuildCount() {
+        return mRebuildCount;
+    }
+}
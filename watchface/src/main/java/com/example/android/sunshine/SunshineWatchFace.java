@@ -21,64 +21,85 @@ import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
+import android.content.SharedPreferences;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.Path;
 import android.graphics.Rect;
 import android.graphics.RectF;
-import android.graphics.Typeface;
+import android.os.BatteryManager;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Message;
+import android.os.SystemClock;
 import android.support.wearable.complications.ComplicationData;
 import android.support.wearable.watchface.CanvasWatchFaceService;
 import android.support.wearable.watchface.WatchFaceService;
 import android.support.wearable.watchface.WatchFaceStyle;
+import android.util.Log;
 import android.view.Gravity;
 import android.view.SurfaceHolder;
 import android.view.WindowInsets;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.lang.ref.WeakReference;
-import java.util.Calendar;
 import java.util.TimeZone;
-import java.util.concurrent.TimeUnit;
 
 import static android.support.wearable.watchface.WatchFaceStyle.PROTECT_HOTWORD_INDICATOR;
 import static android.support.wearable.watchface.WatchFaceStyle.PROTECT_STATUS_BAR;
-import static com.example.android.sunshine.ComplicationsHelper.BOTTOM_DIAL_COMPLICATION;
+import static com.example.android.sunshine.ComplicationsHelper.COMPLICATION_DEFAULT_PROVIDERS;
 import static com.example.android.sunshine.ComplicationsHelper.COMPLICATION_IDS;
 import static com.example.android.sunshine.ComplicationsHelper.COMPLICATION_SUPPORTED_TYPES;
-import static com.example.android.sunshine.ComplicationsHelper.LEFT_DIAL_COMPLICATION;
-import static com.example.android.sunshine.ComplicationsHelper.TOP_DIAL_COMPLICATION;
 
 /**
- * Analog watch face with a ticking second hand. In ambient mode, the second hand isn't
- * shown. On devices with low-bit ambient mode, the hands are drawn without anti-aliasing in ambient
- * mode. The watch face is drawn with less contrast in mute mode.
+ * Analog watch face with a ticking second hand, which can be set to sweep smoothly while the
+ * battery and frame cost allow it. In ambient mode, the second hand isn't shown and each
+ * minute's frame is rendered once. On devices with low-bit ambient mode, the hands are drawn
+ * without anti-aliasing in ambient mode; with burn-in protection the ambient frame shifts by a
+ * few pixels every minute. The watch face is drawn with less contrast in mute mode.
+ *
+ * Frame statistics are printed by
+ * {@code adb shell dumpsys activity service com.example.android.sunshine/.SunshineWatchFace}.
+ * Adding {@code overlay} toggles their overlay on the watch face, {@code reset} clears them.
  */
 public class SunshineWatchFace extends CanvasWatchFaceService {
 
     private static final String TAG = SunshineWatchFace.class.getSimpleName();
 
-    /*
-     * Update rate in milliseconds for interactive mode. We update once a second to advance the
-     * second hand.
-     */
-    private static final long INTERACTIVE_UPDATE_RATE_MS = TimeUnit.SECONDS.toMillis(1);
-
     /**
      * Handler message id for updating the time periodically in interactive mode.
      */
     private static final int MSG_UPDATE_TIME = 0;
 
+    /**
+     * Arguments of dumpsys
+     */
+    private static final String DUMP_ARG_OVERLAY = "overlay";
+    private static final String DUMP_ARG_RESET = "reset";
+
+    // Frame statistics of all engines of this service
+    private final FrameStats mFrameStats = new FrameStats(COMPLICATION_IDS.length);
+
     @Override
     public Engine onCreateEngine() {
         return new Engine();
     }
 
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        for (String arg : args) {
+            if (DUMP_ARG_OVERLAY.equals(arg)) {
+                mFrameStats.setOverlayEnabled(!mFrameStats.isOverlayEnabled());
+            } else if (DUMP_ARG_RESET.equals(arg)) {
+                mFrameStats.reset();
+            }
+        }
+        mFrameStats.dump(writer);
+        writer.println("  Overlay " + (mFrameStats.isOverlayEnabled() ? "on" : "off"));
+    }
+
     private static class EngineHandler extends Handler {
         private final WeakReference<SunshineWatchFace.Engine> mWeakReference;
 
@@ -100,73 +121,79 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
     }
 
     private class Engine extends CanvasWatchFaceService.Engine {
+        // Background is designed at this size and drawn scaled to the surface
         private static final int BACKGROUND_WIDTH = 600;
         private static final int BACKGROUND_HEIGHT = 600;
+        // Version of the background drawing code, bump when changing how it looks
+        private static final int BACKGROUND_VERSION = 1;
 
-        private static final float HOUR_STROKE_WIDTH = 8f;
-        private static final float MINUTE_STROKE_WIDTH = HOUR_STROKE_WIDTH;
-        private static final float HAND_DECORATION_STROKE_WIDTH = 4f;
-        private static final float SECOND_STROKE_WIDTH = 2f;
         private static final float TICK_PRIMARY_STROKE_WIDTH = 5f;
         private static final float TICK_SECONDARY_STROKE_WIDTH = 2f;
 
-        private static final float CENTER_GAP_AND_CIRCLE_RADIUS = 10f;
-        private static final float SECOND_HAND_CIRCLE_RADIUS = 7f;
-
-        private static final int PRIMARY_SHADOW_RADIUS = 6;
-        private static final int SECONDARY_SHADOW_RADIUS = 3;
-
         private static final float HOUR_LABEL_FONT_SIZE = 54f;
 
         private static final int TICK_PADDING = 8;
         private static final int TICK_LENGTH = 28;
 
-        private final Rect mPeekCardBounds = new Rect();
+        private static final float OVERLAY_FONT_SIZE = 14f;
+
         /* Handler to update the time once a second in interactive mode. */
         private final Handler mUpdateTimeHandler = new EngineHandler(this);
-        private Calendar mCalendar;
         private final BroadcastReceiver mTimeZoneReceiver = new BroadcastReceiver() {
             @Override
             public void onReceive(Context context, Intent intent) {
-                mCalendar.setTimeZone(TimeZone.getDefault());
+                mRenderer.setTimeZone(TimeZone.getDefault());
                 invalidate();
             }
         };
         private boolean mRegisteredTimeZoneReceiver = false;
-        private boolean mMuteMode;
-        private float mCenterX;
-        private float mCenterY;
-        private float mSecondHandLength;
-        private float sMinuteHandLength;
-        private float sHourHandLength;
-        /* Colors for all hands (hour, minute, seconds, ticks) based on photo loaded. */
-        private int mWatchHandColor;
-        private int mWatchHandDecorationColor;
-        private int mWatchHandHighlightColor;
-        private int mWatchDarkShadowColor;
-        private Paint mHourPaint;
-        private Paint mMinutePaint;
-        private Paint mHandDecorationPaint;
-        private Paint mSecondPaint;
-        private Paint mSecondCircleBottomPaint;
-        private Paint mSecondCircleTopPaint;
-        private Paint mCircleBottomPaint;
-        private Paint mCircleTopPaint;
+        private final BroadcastReceiver mBatteryReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                updateBatteryState(intent);
+            }
+        };
+        // Kept as a field, shared preferences only hold weak references to listeners
+        private final SharedPreferences.OnSharedPreferenceChangeListener mPreferenceListener =
+                new SharedPreferences.OnSharedPreferenceChangeListener() {
+                    @Override
+                    public void onSharedPreferenceChanged(SharedPreferences preferences,
+                                                          String key) {
+                        if (WatchFacePreferences.KEY_SWEEP_SECOND_HAND.equals(key)) {
+                            mFrameRateController.setSweepEnabled(WatchFacePreferences
+                                    .isSweepSecondHandEnabled(getApplicationContext()));
+                            updateTimer();
+                        }
+                    }
+                };
+        // Redraws the watch face once updated complication is ready to be drawn
+        private final ComplicationsHelper.OnComplicationPreparedListener
+                mComplicationPreparedListener =
+                new ComplicationsHelper.OnComplicationPreparedListener() {
+                    @Override
+                    public void onComplicationPrepared(int watchFaceComplicationId) {
+                        invalidate();
+                    }
+                };
+        /* Chooses interactive update rate */
+        private final FrameRateController mFrameRateController = new FrameRateController();
         private Paint mTickPrimaryPaint;
         private Paint mTickSecondaryPaint;
-        private Paint mBackgroundPaint;
-        private Bitmap mBackgroundBitmap;
-        private Bitmap mGrayBackgroundBitmap;
         private boolean mAmbient;
         private boolean mLowBitAmbient;
         private boolean mBurnInProtection;
-        private ComplicationsHelper mComplicationsHelper;
+        /* Draws frames, holding complications and hands */
+        private WatchFaceRenderer mRenderer;
+        private Paint mOverlayPaint;
+        // Time the pending update timer message is due, or 0 if it is not scheduled
+        private long mNextUpdateTimeMs;
         private boolean mIsSquare;
         private int mSurfaceWidth;
         private int mSurfaceHeight;
 
         @Override
         public void onCreate(SurfaceHolder holder) {
+            long startNanos = SystemClock.elapsedRealtimeNanos();
             super.onCreate(holder);
 
             setWatchFaceStyle(new WatchFaceStyle.Builder(SunshineWatchFace.this)
@@ -182,62 +209,12 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
                     .setHideStatusBar(true)
                     .build());
 
-            /* Set defaults for colors */
-            mWatchHandColor = Color.WHITE;
-            mWatchHandDecorationColor = getColor(R.color.primary);
-            mWatchHandHighlightColor = getColor(R.color.accent);
-            mWatchDarkShadowColor = getColor(R.color.shadow_dark);
-
-            mHourPaint = new Paint();
-            mHourPaint.setColor(mWatchHandColor);
-            mHourPaint.setStrokeWidth(HOUR_STROKE_WIDTH);
-            mHourPaint.setAntiAlias(true);
-            mHourPaint.setStrokeCap(Paint.Cap.SQUARE);
-            mHourPaint.setShadowLayer(PRIMARY_SHADOW_RADIUS, 0, 0, mWatchDarkShadowColor);
-
-            mMinutePaint = new Paint();
-            mMinutePaint.setColor(mWatchHandColor);
-            mMinutePaint.setStrokeWidth(MINUTE_STROKE_WIDTH);
-            mMinutePaint.setAntiAlias(true);
-            mMinutePaint.setStrokeCap(Paint.Cap.SQUARE);
-            mMinutePaint.setShadowLayer(PRIMARY_SHADOW_RADIUS, 0, 0, mWatchDarkShadowColor);
-
-            mHandDecorationPaint = new Paint();
-            mHandDecorationPaint.setColor(mWatchHandDecorationColor);
-            mHandDecorationPaint.setStrokeWidth(HAND_DECORATION_STROKE_WIDTH);
-            mHandDecorationPaint.setAntiAlias(true);
-            mHandDecorationPaint.setStrokeCap(Paint.Cap.SQUARE);
-
-            mSecondPaint = new Paint();
-            mSecondPaint.setColor(mWatchHandHighlightColor);
-            mSecondPaint.setStrokeWidth(SECOND_STROKE_WIDTH);
-            mSecondPaint.setAntiAlias(true);
-            mSecondPaint.setStrokeCap(Paint.Cap.ROUND);
-            mSecondPaint.setShadowLayer(SECONDARY_SHADOW_RADIUS, 0, 0, mWatchDarkShadowColor);
-
-            mSecondCircleBottomPaint = new Paint(mSecondPaint);
-            mSecondCircleBottomPaint.setShadowLayer(SECONDARY_SHADOW_RADIUS, 0, 0, mWatchDarkShadowColor);
-
-            mSecondCircleTopPaint = new Paint(mSecondCircleBottomPaint);
-            mSecondCircleTopPaint.clearShadowLayer();
-
-            mCircleBottomPaint = new Paint();
-            mCircleBottomPaint.setColor(mWatchHandColor);
-            mCircleBottomPaint.setStrokeWidth(SECOND_STROKE_WIDTH);
-            mCircleBottomPaint.setAntiAlias(true);
-            mCircleBottomPaint.setStyle(Paint.Style.FILL);
-            mCircleBottomPaint.setShadowLayer(PRIMARY_SHADOW_RADIUS, 0, 0, mWatchDarkShadowColor);
-
-            mCircleTopPaint = new Paint(mCircleBottomPaint);
-            mCircleTopPaint.clearShadowLayer();
-
-            mTickPrimaryPaint = new Paint();
+            // Fonts are shared by all engines
+            mTickPrimaryPaint = WatchFaceResources.createTextPaint(getApplicationContext(),
+                    WatchFaceResources.FONT_KANIT_MEDIUM);
             mTickPrimaryPaint.setColor(Color.WHITE);
             mTickPrimaryPaint.setStrokeWidth(TICK_PRIMARY_STROKE_WIDTH);
             mTickPrimaryPaint.setTextSize(HOUR_LABEL_FONT_SIZE);
-            mTickPrimaryPaint.setTypeface(Typeface.createFromAsset(getAssets(),
-                    "fonts/Kanit-Medium.ttf"));
-            mTickPrimaryPaint.setAntiAlias(true);
             mTickPrimaryPaint.setStyle(Paint.Style.FILL);
 
             mTickSecondaryPaint = new Paint(mTickPrimaryPaint);
@@ -245,38 +222,70 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
             mTickSecondaryPaint.setStrokeWidth(TICK_SECONDARY_STROKE_WIDTH);
             mTickSecondaryPaint.setAntiAlias(true);
 
-            // Initialise complications helper class
-            mComplicationsHelper = new ComplicationsHelper(getApplicationContext());
+            // Initialise renderer drawing hands and complications
+            mRenderer = new WatchFaceRenderer(getApplicationContext(), mFrameStats);
+            mRenderer.setOnComplicationPreparedListener(mComplicationPreparedListener);
             // Tells Android Wear complications are supported and passes their unique IDs
             setActiveComplications(COMPLICATION_IDS);
 
-            mCalendar = Calendar.getInstance();
+            // Smooth second hand setting
+            mFrameRateController.setSweepEnabled(
+                    WatchFacePreferences.isSweepSecondHandEnabled(getApplicationContext()));
+            WatchFacePreferences.getPreferences(getApplicationContext())
+                    .registerOnSharedPreferenceChangeListener(mPreferenceListener);
+
+            mOverlayPaint = new Paint();
+            mOverlayPaint.setColor(Color.YELLOW);
+            mOverlayPaint.setTextSize(OVERLAY_FONT_SIZE);
+            mOverlayPaint.setAntiAlias(true);
+
+            long durationNanos = SystemClock.elapsedRealtimeNanos() - startNanos;
+            mFrameStats.onEngineCreated(durationNanos);
+            Log.d(TAG, "Engine created in " + durationNanos / 1000 + " us, resources "
+                    + WatchFaceResources.getStats());
+        }
+
+        /**
+         * Returns watch face background of the surface size, loaded from the disk cache if
+         * it has been drawn before.
+         **/
+        private Bitmap loadBackgroundBitmap(boolean isAmbient) {
+            String key = BackgroundCache.getKey(mIsSquare, mSurfaceWidth, mSurfaceHeight,
+                    isAmbient, BACKGROUND_VERSION);
+            Bitmap bitmap = BackgroundCache.load(getApplicationContext(), key);
+            if (bitmap == null) {
+                bitmap = createBackgroundBitmap(isAmbient);
+                BackgroundCache.storeAsync(getApplicationContext(), key, BACKGROUND_VERSION,
+                        bitmap);
+            }
+            return bitmap;
         }
 
         /**
-         * Prepares bitmap to be used as watch face background.
+         * Prepares bitmap to be used as watch face background. The dial is drawn directly at
+         * the surface size, in coordinates of the {@link #BACKGROUND_WIDTH} design.
          **/
         private Bitmap createBackgroundBitmap(boolean isAmbient) {
             // Define colours depending on ambient mode
             int backgroundColor = isAmbient ? Color.BLACK : getColor(R.color.primary_dark);
             int secondaryTickColor = isAmbient ? Color.WHITE : getColor(R.color.primary_light);
             mTickSecondaryPaint.setColor(secondaryTickColor);
+            Paint maskPaint = new Paint();
+            maskPaint.setColor(backgroundColor);
             // Prepare background bitmap
-            mBackgroundPaint = new Paint();
-            mBackgroundPaint.setColor(backgroundColor);
-            mBackgroundPaint.setAntiAlias(false);
-            mBackgroundPaint.setFilterBitmap(true);
-            Bitmap bitmap = Bitmap.createBitmap(BACKGROUND_WIDTH, BACKGROUND_HEIGHT,
+            Bitmap bitmap = Bitmap.createBitmap(mSurfaceWidth, mSurfaceHeight,
                     Bitmap.Config.ARGB_8888);
             bitmap.eraseColor(backgroundColor);
-
-            // Draw logo on the background bitmap
-            Bitmap logo = BitmapFactory.decodeResource(getResources(), R.drawable.ic_logo);
-            logo = Bitmap.createScaledBitmap(logo, (int) (logo.getWidth() * 0.7f),
-                    (int) (logo.getHeight() * 0.7f), true);
             Canvas canvas = new Canvas(bitmap);
-            float x = (bitmap.getWidth() * 0.7f) - (logo.getWidth() * 0.4f);
-            float y = bitmap.getHeight() * 0.5f - (logo.getHeight() * 0.6f);
+            float scale = mSurfaceWidth / (float) BACKGROUND_WIDTH;
+            canvas.scale(scale, scale);
+
+            // Logo is drawn scaled to 70% of its size
+            Bitmap logo = WatchFaceResources.getLogo(getApplicationContext());
+            float logoWidth = logo.getWidth() * 0.7f;
+            float logoHeight = logo.getHeight() * 0.7f;
+            float x = (BACKGROUND_WIDTH * 0.7f) - (logoWidth * 0.4f);
+            float y = BACKGROUND_HEIGHT * 0.5f - (logoHeight * 0.6f);
 
             /*
              * Draw ticks. Usually you will want to bake this directly into the photo, but in
@@ -284,18 +293,19 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
              * creates them on top of the photo.
              */
             if (mIsSquare) {
-                Bitmap ticksBitmap = Bitmap.createBitmap(
-                        BACKGROUND_WIDTH - TICK_PADDING * 2,
-                        BACKGROUND_HEIGHT - TICK_PADDING * 2,
-                        Bitmap.Config.ARGB_8888);
-                Canvas ticksCanvas = new Canvas(ticksBitmap);
-
-                int bitmapCenterX = ticksBitmap.getWidth() / 2;
-                int bitmapCenterY = ticksBitmap.getHeight() / 2;
+                // Ticks are drawn within padded area, clipped to it
+                int width = BACKGROUND_WIDTH - TICK_PADDING * 2;
+                int height = BACKGROUND_HEIGHT - TICK_PADDING * 2;
+                canvas.save();
+                canvas.translate(TICK_PADDING, TICK_PADDING);
+                canvas.clipRect(0, 0, width, height);
+
+                int bitmapCenterX = width / 2;
+                int bitmapCenterY = height / 2;
                 float innerTickRadius = bitmapCenterX - 100f;
                 float outerTickRadius = bitmapCenterX + 100f;
 
-                // Draw ticks on 2nd layer
+                // Draw ticks
                 for (int tickIndex = 0; tickIndex < 60; tickIndex++) {
                     float tickRot = (float) (tickIndex * Math.PI * 2 / 60);
                     float innerX = (float)  Math.sin(tickRot) * innerTickRadius;
@@ -304,26 +314,25 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
                     float outerY = (float) -Math.cos(tickRot) * outerTickRadius;
 
                     if (tickIndex % 5 == 0) {
-                        ticksCanvas.drawLine(bitmapCenterX + innerX, bitmapCenterY + innerY,
+                        canvas.drawLine(bitmapCenterX + innerX, bitmapCenterY + innerY,
                                 bitmapCenterX + outerX, bitmapCenterY + outerY, mTickPrimaryPaint);
                     } else {
-                        ticksCanvas.drawLine(bitmapCenterX + innerX, bitmapCenterY + innerY,
+                        canvas.drawLine(bitmapCenterX + innerX, bitmapCenterY + innerY,
                                 bitmapCenterX + outerX, bitmapCenterY + outerY, mTickSecondaryPaint);
                     }
                 }
 
                 // Draw mask that will trim ticks
-                RectF rectF = new RectF(new Rect(
+                RectF rectF = new RectF(
                         TICK_LENGTH,
                         TICK_LENGTH,
-                        ticksBitmap.getWidth() - TICK_LENGTH ,
-                        ticksBitmap.getHeight() - TICK_LENGTH));
+                        width - TICK_LENGTH,
+                        height - TICK_LENGTH);
 
-                ticksCanvas.drawRoundRect(rectF, 120f, 120f, mBackgroundPaint);
+                canvas.drawRoundRect(rectF, 120f, 120f, maskPaint);
 
                 // Draw hour labels on top of the mask
-                int width = ticksBitmap.getWidth();
-                int height = ticksBitmap.getHeight();
+                Rect textBounds = new Rect();
 
                 // Coordinates of hour labels starting at "1"
                 float[][] labelCoordinates = {
@@ -345,7 +354,6 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
                     String label = Integer.toString(index + 1);
 
                     // Get label measurements
-                    Rect textBounds = new Rect();
                     mTickPrimaryPaint.getTextBounds(label, 0, 1, textBounds);
                     float textWidth = mTickPrimaryPaint.measureText(label);
 
@@ -368,14 +376,13 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
                     }
 
                     // Draw hour labels
-                    ticksCanvas.drawText(label,
+                    canvas.drawText(label,
                             labelCoordinates[index][0] + offsetX,
                             labelCoordinates[index][1] + offsetY,
                             mTickPrimaryPaint);
                 }
 
-                // Draw bitmap with ticks on watch face canvas
-                canvas.drawBitmap(ticksBitmap, TICK_PADDING, TICK_PADDING, mBackgroundPaint);
+                canvas.restore();
             } else {
                 int bitmapCenterX = BACKGROUND_WIDTH / 2;
                 int bitmapCenterY = BACKGROUND_HEIGHT / 2;
@@ -411,22 +418,26 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
                     }
                 }
             }
-            canvas.drawBitmap(logo, x, y, null);
+            Paint logoPaint = new Paint();
+            logoPaint.setFilterBitmap(true);
+            canvas.drawBitmap(logo, null, new RectF(x, y, x + logoWidth, y + logoHeight),
+                    logoPaint);
 
             return bitmap;
         }
 
         @Override
         public void onComplicationDataUpdate(int watchFaceComplicationId, ComplicationData data) {
-            // Adds/updates active complication data in the array.
-            mComplicationsHelper.updateComplicationsArray(watchFaceComplicationId, data);
-            // Invalidate the screen so onDraw() is called
-            invalidate();
+            // Prepares data off the UI thread, screen is invalidated once it is ready
+            mRenderer.updateComplicationDataAsync(watchFaceComplicationId, data);
         }
 
         @Override
         public void onDestroy() {
             mUpdateTimeHandler.removeMessages(MSG_UPDATE_TIME);
+            mRenderer.release();
+            WatchFacePreferences.getPreferences(getApplicationContext())
+                    .unregisterOnSharedPreferenceChangeListener(mPreferenceListener);
             super.onDestroy();
         }
 
@@ -435,6 +446,8 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
             super.onPropertiesChanged(properties);
             mLowBitAmbient = properties.getBoolean(PROPERTY_LOW_BIT_AMBIENT, false);
             mBurnInProtection = properties.getBoolean(PROPERTY_BURN_IN_PROTECTION, false);
+            mRenderer.setBurnInProtection(mBurnInProtection);
+            mRenderer.setLowBitAmbient(mLowBitAmbient);
         }
 
         @Override
@@ -447,8 +460,7 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
         public void onAmbientModeChanged(boolean inAmbientMode) {
             super.onAmbientModeChanged(inAmbientMode);
             mAmbient = inAmbientMode;
-            mComplicationsHelper.setAmbientMode(inAmbientMode);
-            updateWatchHandStyle();
+            mRenderer.setAmbientMode(inAmbientMode);
 
             /* Check and trigger whether or not timer should be running (only in active mode). */
             updateTimer();
@@ -460,17 +472,9 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
             // Determine wearable's shape
             mIsSquare = !insets.isRound();
 
-            /* Create watch face background bitmap */
-            mBackgroundBitmap = createBackgroundBitmap(false);
-
-            /* Scale loaded background image (more efficient) if surface dimensions change. */
-            float scale = ((float) mSurfaceWidth) / (float) mBackgroundBitmap.getWidth();
-            mBackgroundBitmap = Bitmap.createScaledBitmap(mBackgroundBitmap,
-                    (int) (mBackgroundBitmap.getWidth() * scale),
-                    (int) (mBackgroundBitmap.getHeight() * scale), true);
-
-            // Recalculate surface changes
-            mComplicationsHelper.recalculateComplicationsPositions(mSurfaceWidth, mSurfaceHeight);
+            /* Create watch face background bitmap at the surface size */
+            Bitmap backgroundBitmap = loadBackgroundBitmap(false);
+            Bitmap grayBackgroundBitmap = null;
 
             /*
              * Create a gray version of the image only if it will look nice on the device in
@@ -483,54 +487,9 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
              * efficient to create a black/white version (png, etc.) and load that when you need it.
              */
             if (!mBurnInProtection) {
-                mGrayBackgroundBitmap = createBackgroundBitmap(true);
-                mGrayBackgroundBitmap = Bitmap.createScaledBitmap(mGrayBackgroundBitmap,
-                        (int) (mGrayBackgroundBitmap.getWidth() * scale),
-                        (int) (mGrayBackgroundBitmap.getHeight() * scale), true);
-            }
-        }
-
-        private void updateWatchHandStyle() {
-            if (mAmbient) {
-                mHourPaint.setColor(Color.WHITE);
-                mMinutePaint.setColor(Color.WHITE);
-                mSecondPaint.setColor(Color.WHITE);
-                mCircleBottomPaint.setColor(Color.WHITE);
-                mHandDecorationPaint.setColor(Color.BLACK);
-
-                mHourPaint.setAntiAlias(false);
-                mMinutePaint.setAntiAlias(false);
-                mHandDecorationPaint.setAntiAlias(false);
-                mCircleBottomPaint.setAntiAlias(false);
-                mCircleTopPaint.setAntiAlias(false);
-                mCircleTopPaint.setColor(Color.BLACK);
-
-                mBackgroundPaint.setFilterBitmap(false);
-
-                mHourPaint.clearShadowLayer();
-                mMinutePaint.clearShadowLayer();
-                mCircleBottomPaint.clearShadowLayer();
-
-            } else {
-                mHourPaint.setColor(mWatchHandColor);
-                mMinutePaint.setColor(mWatchHandColor);
-                mSecondPaint.setColor(mWatchHandHighlightColor);
-                mCircleBottomPaint.setColor(mWatchHandColor);
-                mHandDecorationPaint.setColor(mWatchHandDecorationColor);
-
-                mHourPaint.setAntiAlias(true);
-                mMinutePaint.setAntiAlias(true);
-                mHandDecorationPaint.setAntiAlias(true);
-                mCircleBottomPaint.setAntiAlias(true);
-                mCircleTopPaint.setAntiAlias(true);
-                mCircleTopPaint.setColor(Color.WHITE);
-
-                mBackgroundPaint.setFilterBitmap(true);
-
-                mHourPaint.setShadowLayer(PRIMARY_SHADOW_RADIUS, 0, 0, mWatchDarkShadowColor);
-                mMinutePaint.setShadowLayer(PRIMARY_SHADOW_RADIUS, 0, 0, mWatchDarkShadowColor);
-                mCircleBottomPaint.setShadowLayer(PRIMARY_SHADOW_RADIUS, 0, 0, mWatchDarkShadowColor);
+                grayBackgroundBitmap = loadBackgroundBitmap(true);
             }
+            mRenderer.setBackgrounds(backgroundBitmap, grayBackgroundBitmap);
         }
 
         @Override
@@ -539,11 +498,7 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
             boolean inMuteMode = (interruptionFilter == WatchFaceService.INTERRUPTION_FILTER_NONE);
 
             /* Dim display in mute mode. */
-            if (mMuteMode != inMuteMode) {
-                mMuteMode = inMuteMode;
-                mHourPaint.setAlpha(inMuteMode ? 100 : 255);
-                mMinutePaint.setAlpha(inMuteMode ? 100 : 255);
-                mSecondPaint.setAlpha(inMuteMode ? 80 : 255);
+            if (mRenderer.setMuteMode(inMuteMode)) {
                 invalidate();
             }
         }
@@ -556,34 +511,15 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
             mSurfaceWidth = width;
             mSurfaceHeight = height;
 
-            /*
-             * Find the coordinates of the center point on the screen, and ignore the window
-             * insets, so that, on round watches with a "chin", the watch face is centered on the
-             * entire screen, not just the usable portion.
-             */
-            mCenterX = width / 2f;
-            mCenterY = height / 2f;
-
-            /*
-             * Calculate lengths of different hands based on watch screen size.
-             */
-            mSecondHandLength = (float) (mCenterX * 0.8);
-            sMinuteHandLength = (float) (mCenterX * 0.8);
-            sHourHandLength = (float) (mCenterX * 0.5);
+            // Recalculate hands & complications and allocate static layer
+            mRenderer.onSurfaceChanged(width, height);
 
             // Set default complications
-            setDefaultComplicationProvider(TOP_DIAL_COMPLICATION,
-                    new ComponentName(getPackageName(),
-                            "com.example.android.sunshine.complications.TemperatureProviderService"),
-                    COMPLICATION_SUPPORTED_TYPES[0][0]);
-            setDefaultComplicationProvider(LEFT_DIAL_COMPLICATION,
-                    new ComponentName(getPackageName(),
-                            "com.example.android.sunshine.complications.SummaryProviderService"),
-                    COMPLICATION_SUPPORTED_TYPES[1][0]);
-            setDefaultComplicationProvider(BOTTOM_DIAL_COMPLICATION,
-                    new ComponentName(getPackageName(),
-                            "com.example.android.sunshine.complications.HumidityProviderService"),
-                    COMPLICATION_SUPPORTED_TYPES[2][0]);
+            for (int i = 0; i < COMPLICATION_IDS.length; i++) {
+                setDefaultComplicationProvider(COMPLICATION_IDS[i],
+                        new ComponentName(getPackageName(), COMPLICATION_DEFAULT_PROVIDERS[i]),
+                        COMPLICATION_SUPPORTED_TYPES[i][0]);
+            }
         }
 
         /**
@@ -595,9 +531,10 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
             switch (tapType) {
                 case TAP_TYPE_TAP:
                     // The user has completed the tap gesture.
-                    int tappedComplicationId = mComplicationsHelper.getTappedComplicationId(x, y);
+                    ComplicationsHelper complicationsHelper = mRenderer.getComplicationsHelper();
+                    int tappedComplicationId = complicationsHelper.getTappedComplicationId(x, y);
                     if (tappedComplicationId != -1) {
-                        mComplicationsHelper.onComplicationTap(tappedComplicationId);
+                        complicationsHelper.onComplicationTap(tappedComplicationId);
                     }
                     break;
             }
@@ -606,131 +543,33 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
 
         @Override
         public void onDraw(Canvas canvas, Rect bounds) {
-            long now = System.currentTimeMillis();
-            mCalendar.setTimeInMillis(now);
-
-            // Draw Background
-            if (mAmbient && mBurnInProtection) {
-                canvas.drawColor(Color.BLACK);
-            } else if (mAmbient) {
-                canvas.drawBitmap(mGrayBackgroundBitmap, 0, 0, mBackgroundPaint);
-            } else {
-                canvas.drawBitmap(mBackgroundBitmap, 0, 0, mBackgroundPaint);
-            }
+            long startNanos = SystemClock.elapsedRealtimeNanos();
+            mRenderer.drawFrame(canvas, System.currentTimeMillis());
 
-            // Draw Complications if device is not in ambient mode
+            int mode = getFrameStatsMode();
+            long durationNanos = SystemClock.elapsedRealtimeNanos() - startNanos;
+            mFrameStats.onFrameDrawn(mode, durationNanos);
             if (!mAmbient) {
-                mComplicationsHelper.drawComplications(canvas, now);
+                mFrameRateController.onFrameDrawn(durationNanos);
             }
-
-            /*
-             * These calculations reflect the rotation in degrees per unit of time, e.g.,
-             * 360 / 60 = 6 and 360 / 12 = 30.
-             */
-            final float seconds =
-                    (mCalendar.get(Calendar.SECOND) + mCalendar.get(Calendar.MILLISECOND) / 1000f);
-            final float secondsRotation = seconds * 6f;
-
-            final float minutesRotation = mCalendar.get(Calendar.MINUTE) * 6f;
-
-            final float hourHandOffset = mCalendar.get(Calendar.MINUTE) / 2f;
-            final float hoursRotation = (mCalendar.get(Calendar.HOUR) * 30) + hourHandOffset;
-
-            /*
-             * Save the canvas state before we can begin to rotate it.
-             */
-            canvas.save();
-
-            canvas.drawCircle(
-                    mCenterX,
-                    mCenterY,
-                    CENTER_GAP_AND_CIRCLE_RADIUS,
-                    mCircleBottomPaint);
-
-            canvas.rotate(hoursRotation, mCenterX, mCenterY);
-            canvas.drawLine(
-                    mCenterX,
-                    mCenterY - CENTER_GAP_AND_CIRCLE_RADIUS,
-                    mCenterX,
-                    mCenterY - sHourHandLength,
-                    mHourPaint);
-            // Draw hand decoration
-            canvas.drawLine(
-                    mCenterX,
-                    mCenterY - CENTER_GAP_AND_CIRCLE_RADIUS - (sHourHandLength * 0.2f),
-                    mCenterX,
-                    mCenterY - sHourHandLength + (sHourHandLength * 0.04f),
-                    mHandDecorationPaint);
-
-            canvas.rotate(minutesRotation - hoursRotation, mCenterX, mCenterY);
-            canvas.drawLine(
-                    mCenterX,
-                    mCenterY - CENTER_GAP_AND_CIRCLE_RADIUS,
-                    mCenterX,
-                    mCenterY - sMinuteHandLength,
-                    mMinutePaint);
-            // Draw hand decoration
-            canvas.drawLine(
-                    mCenterX,
-                    mCenterY - CENTER_GAP_AND_CIRCLE_RADIUS - (sMinuteHandLength * 0.2f),
-                    mCenterX,
-                    mCenterY - sMinuteHandLength + (sMinuteHandLength * 0.04f),
-                    mHandDecorationPaint);
-
-            // Draw top circle
-            if (mAmbient) {
-                canvas.drawCircle(
-                        mCenterX,
-                        mCenterY,
-                        SECOND_HAND_CIRCLE_RADIUS,
-                        mCircleTopPaint);
-            } else {
-                canvas.drawCircle(
-                        mCenterX,
-                        mCenterY,
-                        CENTER_GAP_AND_CIRCLE_RADIUS,
-                        mCircleTopPaint);
+            if (mFrameStats.isOverlayEnabled()) {
+                mFrameStats.drawOverlay(canvas, mode, mOverlayPaint, bounds.exactCenterX(),
+                        bounds.height() * 0.2f);
             }
+        }
 
-            /*
-             * Ensure the "seconds" hand is drawn only when we are in interactive mode.
-             * Otherwise, we only update the watch face once a minute.
-             */
+        /**
+         * Returns mode frames are currently recorded for.
+         */
+        private int getFrameStatsMode() {
             if (!mAmbient) {
-                canvas.rotate(secondsRotation - minutesRotation, mCenterX, mCenterY);
-                canvas.drawCircle(
-                        mCenterX,
-                        mCenterY,
-                        SECOND_HAND_CIRCLE_RADIUS,
-                        mSecondCircleBottomPaint);
-
-                float topY = mSecondHandLength + (CENTER_GAP_AND_CIRCLE_RADIUS * 0.5f) - 1f;
-                float bottomY = mSecondHandLength * 0.22f;
-
-                Path path = new Path();
-                path.moveTo(mCenterX - 1f, mCenterY - topY); // Top
-                path.lineTo(mCenterX - 2f, mCenterY); // Middle left
-                path.lineTo(mCenterX - 3f, mCenterY + bottomY); // Bottom left
-                path.lineTo(mCenterX + 3f, mCenterY + bottomY); // Bottom right
-                path.lineTo(mCenterX + 2f, mCenterY); // Middle right
-                path.lineTo(mCenterX + 1f, mCenterY - topY); // Back to Top
-                path.close();
-                canvas.drawPath(path, mSecondPaint);
-
-                canvas.drawCircle(
-                        mCenterX,
-                        mCenterY,
-                        SECOND_HAND_CIRCLE_RADIUS,
-                        mSecondCircleTopPaint);
-            }
-
-            /* Restore the canvas' original orientation. */
-            canvas.restore();
-
-            /* Draw rectangle behind peek card in ambient mode to improve readability. */
-            if (mAmbient) {
-                canvas.drawRect(mPeekCardBounds, mBackgroundPaint);
+                return FrameStats.MODE_INTERACTIVE;
+            } else if (mBurnInProtection) {
+                return FrameStats.MODE_BURN_IN_AMBIENT;
+            } else if (mLowBitAmbient) {
+                return FrameStats.MODE_LOW_BIT_AMBIENT;
             }
+            return FrameStats.MODE_AMBIENT;
         }
 
         @Override
@@ -740,7 +579,7 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
             if (visible) {
                 registerReceiver();
                 /* Update time zone in case it changed while we weren't visible. */
-                mCalendar.setTimeZone(TimeZone.getDefault());
+                mRenderer.setTimeZone(TimeZone.getDefault());
                 invalidate();
             } else {
                 unregisterReceiver();
@@ -753,7 +592,7 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
         @Override
         public void onPeekCardPositionUpdate(Rect rect) {
             super.onPeekCardPositionUpdate(rect);
-            mPeekCardBounds.set(rect);
+            mRenderer.setPeekCardBounds(rect);
         }
 
         private void registerReceiver() {
@@ -763,6 +602,9 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
             mRegisteredTimeZoneReceiver = true;
             IntentFilter filter = new IntentFilter(Intent.ACTION_TIMEZONE_CHANGED);
             SunshineWatchFace.this.registerReceiver(mTimeZoneReceiver, filter);
+            // Battery changes are sticky, current state is returned right away
+            updateBatteryState(SunshineWatchFace.this.registerReceiver(mBatteryReceiver,
+                    new IntentFilter(Intent.ACTION_BATTERY_CHANGED)));
         }
 
         private void unregisterReceiver() {
@@ -771,6 +613,24 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
             }
             mRegisteredTimeZoneReceiver = false;
             SunshineWatchFace.this.unregisterReceiver(mTimeZoneReceiver);
+            SunshineWatchFace.this.unregisterReceiver(mBatteryReceiver);
+        }
+
+        /**
+         * Passes battery level and charging state to the frame rate controller.
+         *
+         * @param batteryStatus Sticky battery changed intent, may be null
+         */
+        private void updateBatteryState(Intent batteryStatus) {
+            if (batteryStatus == null) {
+                return;
+            }
+            int level = batteryStatus.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+            int scale = batteryStatus.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+            boolean charging = batteryStatus.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+            if (level >= 0 && scale > 0) {
+                mFrameRateController.onBatteryChanged(level * 100 / scale, charging);
+            }
         }
 
         /**
@@ -778,6 +638,7 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
          */
         private void updateTimer() {
             mUpdateTimeHandler.removeMessages(MSG_UPDATE_TIME);
+            mNextUpdateTimeMs = 0;
             if (shouldTimerBeRunning()) {
                 mUpdateTimeHandler.sendEmptyMessage(MSG_UPDATE_TIME);
             }
@@ -796,11 +657,17 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
          */
         private void handleUpdateTimeMessage() {
             invalidate();
+            long timeMs = System.currentTimeMillis();
+            if (mNextUpdateTimeMs != 0) {
+                mFrameStats.onUpdateTimeMessage(mNextUpdateTimeMs, timeMs);
+                mNextUpdateTimeMs = 0;
+            }
             if (shouldTimerBeRunning()) {
-                long timeMs = System.currentTimeMillis();
-                long delayMs = INTERACTIVE_UPDATE_RATE_MS
-                        - (timeMs % INTERACTIVE_UPDATE_RATE_MS);
+                // Frames are aligned to the update rate, so ticks land on second boundaries
+                long updateRateMs = mFrameRateController.getUpdateRateMs();
+                long delayMs = updateRateMs - (timeMs % updateRateMs);
                 mUpdateTimeHandler.sendEmptyMessageDelayed(MSG_UPDATE_TIME, delayMs);
+                mNextUpdateTimeMs = timeMs + delayMs;
             }
         }
     }
@@ -0,0 +1,144 @@
+package com.example.android.sunshine;
+
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.text.TextUtils;
+
+/**
+ * Caches size and position of complication texts keyed by text, slot and ambient mode, so
+ * texts are only measured when they change.
+ */
+class TextLayoutCache {
+
+    /**
+     * Roles of a text within a complication
+     */
+    static final int ROLE_TEXT = 0;
+    static final int ROLE_TEXT_WITH_TITLE = 1;
+    static final int ROLE_TITLE = 2;
+    private static final int ROLE_COUNT = 3;
+
+    // Font size used to measure texts before they are scaled to fit
+    private static final float TEST_TEXT_SIZE = 24f;
+
+    /**
+     * Measured text ready to be drawn.
+     */
+    static class Layout {
+        // Key of the layout
+        private CharSequence mText;
+        private boolean mAmbient;
+        private boolean mValid;
+
+        // Number of characters to draw
+        int length;
+        float textSize;
+        // Offsets of text's origin from the complication's anchor point
+        float offsetX;
+        float offsetY;
+    }
+
+    private final Layout[] mLayouts;
+    private final Rect mBounds = new Rect();
+
+    private int mHits;
+    private int mMisses;
+
+    /**
+     * @param slots Number of complication slots
+     */
+    TextLayoutCache(int slots) {
+        mLayouts = new Layout[slots * ROLE_COUNT];
+        for (int i = 0; i < mLayouts.length; i++) {
+            mLayouts[i] = new Layout();
+        }
+    }
+
+    /**
+     * Returns layout of the text, measuring it only if the text, slot or ambient mode differs
+     * from the last time.
+     *
+     * @param slot          Complication id
+     * @param role          Role of the text within complication
+     * @param text          Text to draw
+     * @param maxLength     Maximum number of characters to draw
+     * @param ambient       true if device is in ambient mode
+     * @param paint         Paint used to draw the text
+     * @param desiredWidth  Maximum width of the text
+     * @param desiredHeight Maximum height of the text
+     * @param baselineY     Vertical position of the text's center, from complication's top
+     */
+    Layout getLayout(int slot, int role, CharSequence text, int maxLength, boolean ambient,
+                     Paint paint, float desiredWidth, float desiredHeight, float baselineY) {
+        Layout layout = mLayouts[slot * ROLE_COUNT + role];
+        if (layout.mValid && layout.mAmbient == ambient && TextUtils.equals(layout.mText, text)) {
+            mHits++;
+            return layout;
+        }
+
+        mMisses++;
+        measure(layout, paint, text, Math.min(text.length(), maxLength), desiredWidth,
+                desiredHeight, baselineY, mBounds);
+        layout.mText = text;
+        layout.mAmbient = ambient;
+        layout.mValid = true;
+        return layout;
+    }
+
+    /**
+     * Forgets all layouts. Has to be called when complications' size changes.
+     */
+    void invalidate() {
+        for (Layout layout : mLayouts) {
+            layout.mValid = false;
+            layout.mText = null;
+        }
+    }
+
+    /**
+     * Returns usage statistics of the cache, for debugging.
+     */
+    String getStats() {
+        return "hits " + mHits + ", misses " + mMisses;
+    }
+
+    /**
+     * Sets text size so the text fits given area and calculates its position. This is the
+     * measurement every frame used to do.
+     *
+     * Credit to Michael Scheper at:
+     * http://stackoverflow.com/questions/12166476/android-canvas-drawtext-set-font-size-from-width
+     * ?answertab=active#tab-top
+     *
+     * @param layout        Destination layout
+     * @param paint         Paint used to draw the text; its text size is changed
+     * @param text          Text to measure
+     * @param length        Number of characters to measure
+     * @param desiredWidth  Maximum width of the text
+     * @param desiredHeight Maximum height of the text
+     * @param baselineY     Vertical position of the text's center
+     * @param bounds        Scratch rectangle
+     */
+    static void measure(Layout layout, Paint paint, CharSequence text, int length,
+                        float desiredWidth, float desiredHeight, float baselineY, Rect bounds) {
+        String string = text.toString();
+
+        // Get the bounds of the text, using our test size
+        paint.setTextSize(TEST_TEXT_SIZE);
+        paint.getTextBounds(string, 0, length, bounds);
+
+        // Calculate the desired size as a proportion of our test size
+        float desiredTextSizeByHeight = TEST_TEXT_SIZE * desiredHeight / bounds.height();
+        float desiredTextSizeByWidth = TEST_TEXT_SIZE * desiredWidth / bounds.width();
+        float desiredTextSize = desiredTextSizeByWidth > desiredTextSizeByHeight ?
+                desiredTextSizeByHeight : desiredTextSizeByWidth;
+        paint.setTextSize(desiredTextSize);
+
+        // Center the text at its final size
+        paint.getTextBounds(string, 0, length, bounds);
+        layout.length = length;
+        layout.textSize = desiredTextSize;
+        layout.offsetX = paint.measureText(string, 0, length) * 0.5f;
+        layout.offsetY = baselineY + bounds.height() * 0.5f;
+    }
+}
@@ -36,15 +36,22 @@ import java.util.List;
 
 /**
  * The watch-side config activity for {@link SunshineWatchFace}, which
- * allows for setting complications on top, left and bottom of watch face.
+ * allows for setting complications on top, left and bottom of watch face
+ * and turning smooth second hand on and off. The list is shown right away
+ * with placeholder icons; icons and provider labels are filled in as
+ * {@link ProviderInfoLoader} delivers them.
  */
 public class WatchFaceConfigActivity extends Activity implements
-        WearableListView.ClickListener {
+        WearableListView.ClickListener, ProviderInfoLoader.IconCallback,
+        ProviderInfoLoader.LabelCallback {
 
     private static final String TAG = "WatchFaceConfig";
 
     private static final int PROVIDER_CHOOSER_REQUEST_CODE = 1;
 
+    // Id of the list item toggling smooth second hand, which is not a complication
+    private static final int SWEEP_SECOND_HAND_ITEM_ID = -1;
+
     private WearableListView mWearableConfigListView;
     private ConfigurationAdapter mAdapter;
 
@@ -58,6 +65,53 @@ public class WatchFaceConfigActivity extends Activity implements
         mWearableConfigListView = (WearableListView) findViewById(R.id.wearable_list);
         mWearableConfigListView.setAdapter(mAdapter);
         mWearableConfigListView.setClickListener(this);
+
+        loadItemInfo();
+    }
+
+    /**
+     * Starts loading icons and provider labels the list items don't have yet.
+     */
+    private void loadItemInfo() {
+        for (int position = 0; position < mAdapter.getItemCount(); position++) {
+            ComplicationItem item = mAdapter.getItem(position);
+            if (item.icon == null) {
+                ProviderInfoLoader.loadIconAsync(getApplicationContext(), item.iconResId, this);
+            }
+            if (item.provider != null && item.providerLabel == null) {
+                ProviderInfoLoader.loadLabelAsync(getApplicationContext(), item.provider, this);
+            }
+        }
+    }
+
+    @Override
+    public void onIconLoaded(int resId, Drawable icon) {
+        if (isDestroyed()) {
+            return;
+        }
+        for (int position = 0; position < mAdapter.getItemCount(); position++) {
+            ComplicationItem item = mAdapter.getItem(position);
+            if (item.iconResId == resId && item.icon == null) {
+                item.icon = icon.getConstantState().newDrawable(getResources());
+                mAdapter.notifyItemChanged(position);
+            }
+        }
+    }
+
+    @Override
+    public void onLabelLoaded(ComponentName provider, String label) {
+        if (isDestroyed()) {
+            return;
+        }
+        for (int position = 0; position < mAdapter.getItemCount(); position++) {
+            ComplicationItem item = mAdapter.getItem(position);
+            if (provider.equals(item.provider)) {
+                item.providerLabel = label;
+                item.title = getString(R.string.config_complication_default_provider,
+                        item.name, label);
+                mAdapter.notifyItemChanged(position);
+            }
+        }
     }
 
     @Override
@@ -75,6 +129,15 @@ public class WatchFaceConfigActivity extends Activity implements
         Integer tag = (Integer) viewHolder.itemView.getTag();
         ComplicationItem complicationItem = mAdapter.getItem(tag);
 
+        if (complicationItem.complicationId == SWEEP_SECOND_HAND_ITEM_ID) {
+            // Toggle the setting in place, the watch face picks it up right away
+            boolean enabled = !WatchFacePreferences.isSweepSecondHandEnabled(this);
+            WatchFacePreferences.setSweepSecondHandEnabled(this, enabled);
+            complicationItem.title = getSweepSecondHandTitle(enabled);
+            mAdapter.notifyItemChanged(tag);
+            return;
+        }
+
         // Allows the user to select a provider for the complication chosen
         startActivityForResult(
                 ComplicationHelperActivity.createProviderChooserHelperIntent(
@@ -99,20 +162,36 @@ public class WatchFaceConfigActivity extends Activity implements
 
         int[] complicationIds = ComplicationsHelper.COMPLICATION_IDS;
 
+        // Icons are only looked up here, they are decoded by ProviderInfoLoader
         TypedArray icons = getResources().obtainTypedArray(R.array.complication_icons);
 
         List<ComplicationItem> items = new ArrayList<>();
         for (int i = 0; i < complicationIds.length; i++) {
+            ComponentName provider = new ComponentName(getPackageName(),
+                    ComplicationsHelper.COMPLICATION_DEFAULT_PROVIDERS[i]);
             items.add(new ComplicationItem(watchFace,
                     complicationIds[i],
                     ComplicationsHelper.COMPLICATION_SUPPORTED_TYPES[i],
-                    icons.getDrawable(i),
-                    complicationNames[i]));
+                    icons.getResourceId(i, 0),
+                    complicationNames[i],
+                    provider));
         }
         icons.recycle();
+
+        items.add(new ComplicationItem(watchFace,
+                SWEEP_SECOND_HAND_ITEM_ID,
+                null,
+                R.drawable.timer,
+                getSweepSecondHandTitle(WatchFacePreferences.isSweepSecondHandEnabled(this)),
+                null));
         return items;
     }
 
+    private String getSweepSecondHandTitle(boolean enabled) {
+        return getString(enabled ? R.string.config_sweep_second_hand_on
+                : R.string.config_sweep_second_hand_off);
+    }
+
     /*
      * Inner class representing items of the ConfigurationAdapter (WearableListView.Adapter) class.
      */
@@ -120,16 +199,34 @@ public class WatchFaceConfigActivity extends Activity implements
         ComponentName watchFace;
         int complicationId;
         int[] supportedTypes;
+        int iconResId;
+        // Loaded icon, null until it is available
         Drawable icon;
+        String name;
         String title;
+        // Default provider of the complication and its label, null until it is available
+        ComponentName provider;
+        String providerLabel;
 
         public ComplicationItem(ComponentName watchFace, int complicationId, int[] supportedTypes,
-                                Drawable icon, String title) {
+                                int iconResId, String name, ComponentName provider) {
             this.watchFace = watchFace;
             this.complicationId = complicationId;
             this.supportedTypes = supportedTypes;
-            this.icon = icon;
-            this.title = title;
+            this.iconResId = iconResId;
+            this.name = name;
+            this.title = name;
+            this.provider = provider;
+
+            // Items loaded before are shown complete right away
+            icon = ProviderInfoLoader.getCachedIcon(getApplicationContext(), iconResId);
+            if (provider != null) {
+                providerLabel = ProviderInfoLoader.getCachedLabel(provider);
+                if (providerLabel != null) {
+                    title = getString(R.string.config_complication_default_provider,
+                            name, providerLabel);
+                }
+            }
         }
     }
 
@@ -171,7 +268,13 @@ public class WatchFaceConfigActivity extends Activity implements
             ItemViewHolder itemHolder = (ItemViewHolder) holder;
 
             ImageView imageView = itemHolder.iconImageView;
-            imageView.setImageDrawable(mItems.get(position).icon);
+            Drawable icon = mItems.get(position).icon;
+            if (icon != null) {
+                imageView.setImageDrawable(icon);
+            } else {
+                // Placeholder until item's icon is loaded, every view gets its own drawable
+                imageView.setImageResource(R.drawable.config_icon_placeholder);
+            }
 
             TextView textView = itemHolder.textView;
             textView.setText(mItems.get(position).title);
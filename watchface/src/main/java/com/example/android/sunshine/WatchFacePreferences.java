@@ -0,0 +1,37 @@
+package com.example.android.sunshine;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+/**
+ * Settings of the watch face chosen in {@link WatchFaceConfigActivity}.
+ */
+final class WatchFacePreferences {
+    private static final String PREFERENCES_NAME = "watch_face";
+    static final String KEY_SWEEP_SECOND_HAND = "sweep_second_hand";
+
+    private WatchFacePreferences() {}
+
+    /**
+     * Returns true if second hand should sweep smoothly instead of ticking once a second.
+     *
+     * @param context Application's context
+     */
+    static boolean isSweepSecondHandEnabled(Context context) {
+        return getPreferences(context).getBoolean(KEY_SWEEP_SECOND_HAND, false);
+    }
+
+    /**
+     * Turns smooth second hand on and off.
+     *
+     * @param context Application's context
+     * @param enabled true if second hand should sweep smoothly
+     */
+    static void setSweepSecondHandEnabled(Context context, boolean enabled) {
+        getPreferences(context).edit().putBoolean(KEY_SWEEP_SECOND_HAND, enabled).apply();
+    }
+
+    static SharedPreferences getPreferences(Context context) {
+        return context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.android.sunshine;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.support.wearable.complications.ComplicationData;
+import android.text.format.DateUtils;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Draws frames of the Sunshine watch face: cached static layer with background and
+ * complications, hands on top of it. In ambient mode the whole frame changes once a minute,
+ * so it is rendered once into its own buffer and that buffer is presented until the next
+ * minute. Holds all state drawing depends on, so frames can be drawn for any time and mode
+ * outside of the watch face service.
+ */
+class WatchFaceRenderer {
+    // Burn-in protection moves ambient frame within a 3x3 grid of offsets, one per minute
+    private static final int BURN_IN_SHIFT_PX = 4;
+    private static final int BURN_IN_SHIFT_POSITIONS = 9;
+
+    private final ComplicationsHelper mComplicationsHelper;
+    private final WatchHandsHelper mWatchHandsHelper;
+    // Background and complications, redrawn only when they change
+    private final StaticLayer mStaticLayer = new StaticLayer();
+    // Complete ambient frame of the current minute
+    private final StaticLayer mAmbientFrame = new StaticLayer();
+    private final Calendar mCalendar = Calendar.getInstance();
+    private final Rect mPeekCardBounds = new Rect();
+    private final Paint mBackgroundPaint;
+
+    private Bitmap mBackgroundBitmap;
+    private Bitmap mGrayBackgroundBitmap;
+    private boolean mAmbient;
+    private boolean mBurnInProtection;
+    private boolean mLowBitAmbient;
+    private boolean mMuteMode;
+    private ComplicationsHelper.OnComplicationPreparedListener mOnComplicationPreparedListener;
+
+    /**
+     * @param context    Application's context
+     * @param frameStats Receiver of complications' draw cost, may be null
+     */
+    WatchFaceRenderer(Context context, FrameStats frameStats) {
+        mWatchHandsHelper = new WatchHandsHelper(context);
+        mComplicationsHelper = new ComplicationsHelper(context);
+        mComplicationsHelper.setFrameStats(frameStats);
+        mComplicationsHelper.setOnComplicationPreparedListener(
+                new ComplicationsHelper.OnComplicationPreparedListener() {
+                    @Override
+                    public void onComplicationPrepared(int watchFaceComplicationId) {
+                        mStaticLayer.invalidate();
+                        if (mOnComplicationPreparedListener != null) {
+                            mOnComplicationPreparedListener
+                                    .onComplicationPrepared(watchFaceComplicationId);
+                        }
+                    }
+                });
+
+        mBackgroundPaint = new Paint();
+        mBackgroundPaint.setColor(Color.BLACK);
+        mBackgroundPaint.setAntiAlias(false);
+        mBackgroundPaint.setFilterBitmap(true);
+    }
+
+    /**
+     * Draws frame of the watch face.
+     *
+     * @param canvas on which to draw
+     * @param now    current time in milliseconds
+     */
+    void drawFrame(Canvas canvas, long now) {
+        mCalendar.setTimeInMillis(now);
+
+        if (mAmbient) {
+            // Render the minute's frame once, later frames of the minute only present it
+            if (!mAmbientFrame.isValid(now)) {
+                drawAmbientFrame(mAmbientFrame.beginRebuild(getNextMinute(now)), now);
+            }
+            mAmbientFrame.draw(canvas);
+
+            /* Draw rectangle behind peek card in ambient mode to improve readability. */
+            canvas.drawRect(mPeekCardBounds, mBackgroundPaint);
+            return;
+        }
+
+        // Redraw background & complications only when they change
+        if (!mStaticLayer.isValid(now)) {
+            drawStaticContent(mStaticLayer.beginRebuild(getNextMinute(now)), now);
+        }
+        mStaticLayer.draw(canvas);
+
+        // Draw hands
+        mWatchHandsHelper.drawHands(canvas, mCalendar);
+    }
+
+    /**
+     * Draws complete ambient frame. With burn-in protection the frame is shifted by a few
+     * pixels every minute, so the same pixels are not lit all the time.
+     *
+     * @param canvas on which to draw
+     * @param now    current time in milliseconds
+     */
+    private void drawAmbientFrame(Canvas canvas, long now) {
+        canvas.save();
+        if (mBurnInProtection) {
+            int position = (int) ((now / DateUtils.MINUTE_IN_MILLIS) % BURN_IN_SHIFT_POSITIONS);
+            canvas.translate((position % 3 - 1) * BURN_IN_SHIFT_PX,
+                    (position / 3 - 1) * BURN_IN_SHIFT_PX);
+        }
+        drawStaticContent(canvas, now);
+        mWatchHandsHelper.drawHands(canvas, mCalendar);
+        canvas.restore();
+    }
+
+    /**
+     * Draws background and complications.
+     *
+     * @param canvas on which to draw
+     * @param now    current time in milliseconds
+     */
+    private void drawStaticContent(Canvas canvas, long now) {
+        // Draw Background
+        if (mAmbient && mBurnInProtection) {
+            canvas.drawColor(Color.BLACK);
+        } else if (mAmbient) {
+            canvas.drawBitmap(mGrayBackgroundBitmap, 0, 0, mBackgroundPaint);
+        } else {
+            canvas.drawBitmap(mBackgroundBitmap, 0, 0, mBackgroundPaint);
+        }
+
+        // Draw Complications if device is not in ambient mode
+        if (!mAmbient) {
+            mComplicationsHelper.drawComplications(canvas, now);
+        }
+    }
+
+    /**
+     * Returns start of the next minute, when layers drawn now expire. Complication texts and
+     * active periods change at most once a minute, ambient hands move once a minute.
+     */
+    private static long getNextMinute(long now) {
+        return now - (now % DateUtils.MINUTE_IN_MILLIS) + DateUtils.MINUTE_IN_MILLIS;
+    }
+
+    /**
+     * Recalculates hands, complications and static layer for new surface size.
+     *
+     * @param width  Width of the watch face
+     * @param height Height of the watch face
+     */
+    void onSurfaceChanged(int width, int height) {
+        mWatchHandsHelper.onSurfaceChanged(width, height);
+        mComplicationsHelper.recalculateComplicationsPositions(width, height);
+        mStaticLayer.onSurfaceChanged(width, height);
+        mAmbientFrame.onSurfaceChanged(width, height);
+    }
+
+    /**
+     * Sets backgrounds of the surface size.
+     *
+     * @param background     Interactive background
+     * @param grayBackground Ambient background, may be null with burn-in protection
+     */
+    void setBackgrounds(Bitmap background, Bitmap grayBackground) {
+        mBackgroundBitmap = background;
+        mGrayBackgroundBitmap = grayBackground;
+        invalidateLayers();
+    }
+
+    void setAmbientMode(boolean inAmbientMode) {
+        mAmbient = inAmbientMode;
+        mComplicationsHelper.setAmbientMode(inAmbientMode);
+        mWatchHandsHelper.setAmbientMode(inAmbientMode);
+        mBackgroundPaint.setFilterBitmap(!inAmbientMode);
+        invalidateLayers();
+    }
+
+    void setBurnInProtection(boolean burnInProtection) {
+        mBurnInProtection = burnInProtection;
+        updateAmbientFrameConfig();
+        invalidateLayers();
+    }
+
+    void setLowBitAmbient(boolean lowBitAmbient) {
+        mLowBitAmbient = lowBitAmbient;
+        updateAmbientFrameConfig();
+    }
+
+    /**
+     * Keeps ambient frame in 16 bits on devices that can't show more colors in ambient mode
+     * or draw mostly black frames with burn-in protection.
+     */
+    private void updateAmbientFrameConfig() {
+        mAmbientFrame.setConfig(mLowBitAmbient || mBurnInProtection
+                ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888);
+    }
+
+    /**
+     * Dims the hands in mute mode.
+     *
+     * @param inMuteMode true if device is in mute mode
+     * @return true if the mode has changed
+     */
+    boolean setMuteMode(boolean inMuteMode) {
+        if (mMuteMode == inMuteMode) {
+            return false;
+        }
+        mMuteMode = inMuteMode;
+        mWatchHandsHelper.setMuteMode(inMuteMode);
+        mAmbientFrame.invalidate();
+        return true;
+    }
+
+    void setTimeZone(TimeZone timeZone) {
+        mCalendar.setTimeZone(timeZone);
+        invalidateLayers();
+    }
+
+    void setPeekCardBounds(Rect bounds) {
+        mPeekCardBounds.set(bounds);
+    }
+
+    /**
+     * Adds/updates active complication data, preparing it on the calling thread.
+     *
+     * @param watchFaceComplicationId id of the complication to update
+     * @param data                    complication data
+     */
+    void updateComplicationData(int watchFaceComplicationId, ComplicationData data) {
+        mComplicationsHelper.updateComplicationsArray(watchFaceComplicationId, data);
+        mStaticLayer.invalidate();
+    }
+
+    /**
+     * Adds/updates active complication data once it has been prepared on a worker thread. The
+     * listener set by {@link #setOnComplicationPreparedListener} is notified when the data is
+     * ready to be drawn.
+     *
+     * @param watchFaceComplicationId id of the complication to update
+     * @param data                    complication data
+     */
+    void updateComplicationDataAsync(int watchFaceComplicationId, ComplicationData data) {
+        mComplicationsHelper.prepareComplicationDataAsync(watchFaceComplicationId, data);
+    }
+
+    void setOnComplicationPreparedListener(
+            ComplicationsHelper.OnComplicationPreparedListener listener) {
+        mOnComplicationPreparedListener = listener;
+    }
+
+    /**
+     * Stops delivering prepared complications. Has to be called when the watch face is
+     * destroyed.
+     */
+    void release() {
+        mOnComplicationPreparedListener = null;
+        mComplicationsHelper.cancelPendingPreparations();
+    }
+
+    /**
+     * Redraws static layer and ambient frame on the next frame.
+     */
+    void invalidateLayers() {
+        mStaticLayer.invalidate();
+        mAmbientFrame.invalidate();
+    }
+
+    ComplicationsHelper getComplicationsHelper() {
+        return mComplicationsHelper;
+    }
+
+    /**
+     * Returns number of times the static layer and ambient frame have been rebuilt, for
+     * debugging.
+     */
+    int getLayerRebuildCount() {
+        return mStaticLayer.getRebuildCount() + mAmbientFrame.getRebuildCount();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.android.sunshine;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Process-wide cache of resources shared by watch face engines. Fonts are parsed and the logo
+ * is decoded once, on first use, instead of by every new engine (previews, re-selecting the
+ * watch face).
+ */
+final class WatchFaceResources {
+
+    /**
+     * Fonts bundled in assets
+     */
+    static final String FONT_KANIT_LIGHT = "fonts/Kanit-Light.ttf";
+    static final String FONT_KANIT_MEDIUM = "fonts/Kanit-Medium.ttf";
+
+    private static final Map<String, Typeface> sTypefaces = new HashMap<>();
+    // Anti aliased paints using the font, copied for every caller
+    private static final Map<String, Paint> sTextPaintTemplates = new HashMap<>();
+    private static Bitmap sLogo;
+
+    private static int sHitCount;
+    private static int sMissCount;
+
+    private WatchFaceResources() {}
+
+    /**
+     * Returns typeface loaded from assets.
+     *
+     * @param context   Application's context
+     * @param assetPath Path of the font in assets
+     */
+    static synchronized Typeface getTypeface(Context context, String assetPath) {
+        Typeface typeface = sTypefaces.get(assetPath);
+        if (typeface != null) {
+            sHitCount++;
+            return typeface;
+        }
+        sMissCount++;
+        typeface = Typeface.createFromAsset(context.getAssets(), assetPath);
+        sTypefaces.put(assetPath, typeface);
+        return typeface;
+    }
+
+    /**
+     * Returns new anti aliased paint using given font. The paint can be changed freely.
+     *
+     * @param context   Application's context
+     * @param assetPath Path of the font in assets
+     */
+    static synchronized Paint createTextPaint(Context context, String assetPath) {
+        Paint template = sTextPaintTemplates.get(assetPath);
+        if (template == null) {
+            template = new Paint();
+            template.setTypeface(getTypeface(context, assetPath));
+            template.setAntiAlias(true);
+            sTextPaintTemplates.put(assetPath, template);
+        }
+        return new Paint(template);
+    }
+
+    /**
+     * Returns decoded Sunshine logo. The bitmap is shared and must not be changed or recycled.
+     *
+     * @param context Application's context
+     */
+    static synchronized Bitmap getLogo(Context context) {
+        if (sLogo != null) {
+            sHitCount++;
+            return sLogo;
+        }
+        sMissCount++;
+        sLogo = BitmapFactory.decodeResource(context.getResources(), R.drawable.ic_logo);
+        return sLogo;
+    }
+
+    /**
+     * Returns usage statistics of the cache, for debugging.
+     */
+    static synchronized String getStats() {
+        return "hits " + sHitCount + ", misses " + sMissCount;
+    }
+}
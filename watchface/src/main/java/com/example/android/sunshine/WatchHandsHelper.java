@@ -0,0 +1,292 @@
+package com.example.android.sunshine;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+
+import java.util.Calendar;
+
+/**
+ * Helper class that draws hands of the Sunshine watch face. Everything needed to draw a frame
+ * is prepared when the surface or mode changes, so drawing the hands does not allocate.
+ */
+class WatchHandsHelper {
+
+    private static final float HOUR_STROKE_WIDTH = 8f;
+    private static final float MINUTE_STROKE_WIDTH = HOUR_STROKE_WIDTH;
+    private static final float HAND_DECORATION_STROKE_WIDTH = 4f;
+    private static final float SECOND_STROKE_WIDTH = 2f;
+
+    private static final float CENTER_GAP_AND_CIRCLE_RADIUS = 10f;
+    private static final float SECOND_HAND_CIRCLE_RADIUS = 7f;
+
+    private static final int PRIMARY_SHADOW_RADIUS = 6;
+    private static final int SECONDARY_SHADOW_RADIUS = 3;
+
+    private float mCenterX;
+    private float mCenterY;
+    private float mSecondHandLength;
+    private float sMinuteHandLength;
+    private float sHourHandLength;
+    /* Colors for all hands (hour, minute, seconds, ticks) based on photo loaded. */
+    private int mWatchHandColor;
+    private int mWatchHandDecorationColor;
+    private int mWatchHandHighlightColor;
+    private int mWatchDarkShadowColor;
+    private Paint mHourPaint;
+    private Paint mMinutePaint;
+    private Paint mHandDecorationPaint;
+    private Paint mSecondPaint;
+    private Paint mSecondCircleBottomPaint;
+    private Paint mSecondCircleTopPaint;
+    private Paint mCircleBottomPaint;
+    private Paint mCircleTopPaint;
+    // Second hand's outline, rebuilt only when the surface changes
+    private final Path mSecondHandPath = new Path();
+    private boolean mAmbient;
+
+    WatchHandsHelper(Context context) {
+        /* Set defaults for colors */
+        mWatchHandColor = Color.WHITE;
+        mWatchHandDecorationColor = context.getColor(R.color.primary);
+        mWatchHandHighlightColor = context.getColor(R.color.accent);
+        mWatchDarkShadowColor = context.getColor(R.color.shadow_dark);
+
+        mHourPaint = new Paint();
+        mHourPaint.setColor(mWatchHandColor);
+        mHourPaint.setStrokeWidth(HOUR_STROKE_WIDTH);
+        mHourPaint.setAntiAlias(true);
+        mHourPaint.setStrokeCap(Paint.Cap.SQUARE);
+        mHourPaint.setShadowLayer(PRIMARY_SHADOW_RADIUS, 0, 0, mWatchDarkShadowColor);
+
+        mMinutePaint = new Paint();
+        mMinutePaint.setColor(mWatchHandColor);
+        mMinutePaint.setStrokeWidth(MINUTE_STROKE_WIDTH);
+        mMinutePaint.setAntiAlias(true);
+        mMinutePaint.setStrokeCap(Paint.Cap.SQUARE);
+        mMinutePaint.setShadowLayer(PRIMARY_SHADOW_RADIUS, 0, 0, mWatchDarkShadowColor);
+
+        mHandDecorationPaint = new Paint();
+        mHandDecorationPaint.setColor(mWatchHandDecorationColor);
+        mHandDecorationPaint.setStrokeWidth(HAND_DECORATION_STROKE_WIDTH);
+        mHandDecorationPaint.setAntiAlias(true);
+        mHandDecorationPaint.setStrokeCap(Paint.Cap.SQUARE);
+
+        mSecondPaint = new Paint();
+        mSecondPaint.setColor(mWatchHandHighlightColor);
+        mSecondPaint.setStrokeWidth(SECOND_STROKE_WIDTH);
+        mSecondPaint.setAntiAlias(true);
+        mSecondPaint.setStrokeCap(Paint.Cap.ROUND);
+        mSecondPaint.setShadowLayer(SECONDARY_SHADOW_RADIUS, 0, 0, mWatchDarkShadowColor);
+
+        mSecondCircleBottomPaint = new Paint(mSecondPaint);
+        mSecondCircleBottomPaint.setShadowLayer(SECONDARY_SHADOW_RADIUS, 0, 0, mWatchDarkShadowColor);
+
+        mSecondCircleTopPaint = new Paint(mSecondCircleBottomPaint);
+        mSecondCircleTopPaint.clearShadowLayer();
+
+        mCircleBottomPaint = new Paint();
+        mCircleBottomPaint.setColor(mWatchHandColor);
+        mCircleBottomPaint.setStrokeWidth(SECOND_STROKE_WIDTH);
+        mCircleBottomPaint.setAntiAlias(true);
+        mCircleBottomPaint.setStyle(Paint.Style.FILL);
+        mCircleBottomPaint.setShadowLayer(PRIMARY_SHADOW_RADIUS, 0, 0, mWatchDarkShadowColor);
+
+        mCircleTopPaint = new Paint(mCircleBottomPaint);
+        mCircleTopPaint.clearShadowLayer();
+    }
+
+    /**
+     * Calculates hand sizes and prepares second hand's outline.
+     *
+     * @param width  Width of the watch face
+     * @param height Height of the watch face
+     */
+    void onSurfaceChanged(int width, int height) {
+        /*
+         * Find the coordinates of the center point on the screen, and ignore the window
+         * insets, so that, on round watches with a "chin", the watch face is centered on the
+         * entire screen, not just the usable portion.
+         */
+        mCenterX = width / 2f;
+        mCenterY = height / 2f;
+
+        /*
+         * Calculate lengths of different hands based on watch screen size.
+         */
+        mSecondHandLength = (float) (mCenterX * 0.8);
+        sMinuteHandLength = (float) (mCenterX * 0.8);
+        sHourHandLength = (float) (mCenterX * 0.5);
+
+        float topY = mSecondHandLength + (CENTER_GAP_AND_CIRCLE_RADIUS * 0.5f) - 1f;
+        float bottomY = mSecondHandLength * 0.22f;
+
+        mSecondHandPath.reset();
+        mSecondHandPath.moveTo(mCenterX - 1f, mCenterY - topY); // Top
+        mSecondHandPath.lineTo(mCenterX - 2f, mCenterY); // Middle left
+        mSecondHandPath.lineTo(mCenterX - 3f, mCenterY + bottomY); // Bottom left
+        mSecondHandPath.lineTo(mCenterX + 3f, mCenterY + bottomY); // Bottom right
+        mSecondHandPath.lineTo(mCenterX + 2f, mCenterY); // Middle right
+        mSecondHandPath.lineTo(mCenterX + 1f, mCenterY - topY); // Back to Top
+        mSecondHandPath.close();
+    }
+
+    /**
+     * Switches hand style between ambient and interactive mode.
+     *
+     * @param inAmbientMode true if device is in ambient mode
+     */
+    void setAmbientMode(boolean inAmbientMode) {
+        mAmbient = inAmbientMode;
+        if (mAmbient) {
+            mHourPaint.setColor(Color.WHITE);
+            mMinutePaint.setColor(Color.WHITE);
+            mSecondPaint.setColor(Color.WHITE);
+            mCircleBottomPaint.setColor(Color.WHITE);
+            mHandDecorationPaint.setColor(Color.BLACK);
+
+            mHourPaint.setAntiAlias(false);
+            mMinutePaint.setAntiAlias(false);
+            mHandDecorationPaint.setAntiAlias(false);
+            mCircleBottomPaint.setAntiAlias(false);
+            mCircleTopPaint.setAntiAlias(false);
+            mCircleTopPaint.setColor(Color.BLACK);
+
+            mHourPaint.clearShadowLayer();
+            mMinutePaint.clearShadowLayer();
+            mCircleBottomPaint.clearShadowLayer();
+
+        } else {
+            mHourPaint.setColor(mWatchHandColor);
+            mMinutePaint.setColor(mWatchHandColor);
+            mSecondPaint.setColor(mWatchHandHighlightColor);
+            mCircleBottomPaint.setColor(mWatchHandColor);
+            mHandDecorationPaint.setColor(mWatchHandDecorationColor);
+
+            mHourPaint.setAntiAlias(true);
+            mMinutePaint.setAntiAlias(true);
+            mHandDecorationPaint.setAntiAlias(true);
+            mCircleBottomPaint.setAntiAlias(true);
+            mCircleTopPaint.setAntiAlias(true);
+            mCircleTopPaint.setColor(Color.WHITE);
+
+            mHourPaint.setShadowLayer(PRIMARY_SHADOW_RADIUS, 0, 0, mWatchDarkShadowColor);
+            mMinutePaint.setShadowLayer(PRIMARY_SHADOW_RADIUS, 0, 0, mWatchDarkShadowColor);
+            mCircleBottomPaint.setShadowLayer(PRIMARY_SHADOW_RADIUS, 0, 0, mWatchDarkShadowColor);
+        }
+    }
+
+    /**
+     * Dims hands in mute mode.
+     *
+     * @param inMuteMode true if interruption filter is set to none
+     */
+    void setMuteMode(boolean inMuteMode) {
+        mHourPaint.setAlpha(inMuteMode ? 100 : 255);
+        mMinutePaint.setAlpha(inMuteMode ? 100 : 255);
+        mSecondPaint.setAlpha(inMuteMode ? 80 : 255);
+    }
+
+    /**
+     * Draws hands on the watch face.
+     *
+     * @param canvas   where hands are drawn
+     * @param calendar set to the time to be shown
+     */
+    void drawHands(Canvas canvas, Calendar calendar) {
+        /*
+         * These calculations reflect the rotation in degrees per unit of time, e.g.,
+         * 360 / 60 = 6 and 360 / 12 = 30.
+         */
+        final float seconds =
+                (calendar.get(Calendar.SECOND) + calendar.get(Calendar.MILLISECOND) / 1000f);
+        final float secondsRotation = seconds * 6f;
+
+        final float minutesRotation = calendar.get(Calendar.MINUTE) * 6f;
+
+        final float hourHandOffset = calendar.get(Calendar.MINUTE) / 2f;
+        final float hoursRotation = (calendar.get(Calendar.HOUR) * 30) + hourHandOffset;
+
+        /*
+         * Save the canvas state before we can begin to rotate it.
+         */
+        canvas.save();
+
+        canvas.drawCircle(
+                mCenterX,
+                mCenterY,
+                CENTER_GAP_AND_CIRCLE_RADIUS,
+                mCircleBottomPaint);
+
+        canvas.rotate(hoursRotation, mCenterX, mCenterY);
+        canvas.drawLine(
+                mCenterX,
+                mCenterY - CENTER_GAP_AND_CIRCLE_RADIUS,
+                mCenterX,
+                mCenterY - sHourHandLength,
+                mHourPaint);
+        // Draw hand decoration
+        canvas.drawLine(
+                mCenterX,
+                mCenterY - CENTER_GAP_AND_CIRCLE_RADIUS - (sHourHandLength * 0.2f),
+                mCenterX,
+                mCenterY - sHourHandLength + (sHourHandLength * 0.04f),
+                mHandDecorationPaint);
+
+        canvas.rotate(minutesRotation - hoursRotation, mCenterX, mCenterY);
+        canvas.drawLine(
+                mCenterX,
+                mCenterY - CENTER_GAP_AND_CIRCLE_RADIUS,
+                mCenterX,
+                mCenterY - sMinuteHandLength,
+                mMinutePaint);
+        // Draw hand decoration
+        canvas.drawLine(
+                mCenterX,
+                mCenterY - CENTER_GAP_AND_CIRCLE_RADIUS - (sMinuteHandLength * 0.2f),
+                mCenterX,
+                mCenterY - sMinuteHandLength + (sMinuteHandLength * 0.04f),
+                mHandDecorationPaint);
+
+        // Draw top circle
+        if (mAmbient) {
+            canvas.drawCircle(
+                    mCenterX,
+                    mCenterY,
+                    SECOND_HAND_CIRCLE_RADIUS,
+                    mCircleTopPaint);
+        } else {
+            canvas.drawCircle(
+                    mCenterX,
+                    mCenterY,
+                    CENTER_GAP_AND_CIRCLE_RADIUS,
+                    mCircleTopPaint);
+        }
+
+        /*
+         * Ensure the "seconds" hand is drawn only when we are in interactive mode.
+         * Otherwise, we only update the watch face once a minute.
+         */
+        if (!mAmbient) {
+            canvas.rotate(secondsRotation - minutesRotation, mCenterX, mCenterY);
+            canvas.drawCircle(
+                    mCenterX,
+                    mCenterY,
+                    SECOND_HAND_CIRCLE_RADIUS,
+                    mSecondCircleBottomPaint);
+
+            canvas.drawPath(mSecondHandPath, mSecondPaint);
+
+            canvas.drawCircle(
+                    mCenterX,
+                    mCenterY,
+                    SECOND_HAND_CIRCLE_RADIUS,
+                    mSecondCircleTopPaint);
+        }
+
+        /* Restore the canvas' original orientation. */
+        canvas.restore();
+    }
+}
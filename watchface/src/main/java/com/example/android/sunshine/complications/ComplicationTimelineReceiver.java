@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.complications;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.support.wearable.complications.ProviderUpdateRequester;
+import android.util.Log;
+
+/**
+ * Refreshes weather complications when the published forecast day expires, so the next known
+ * day is shown without waiting for the handheld. Only a single refresh is ever scheduled.
+ */
+public class ComplicationTimelineReceiver extends BroadcastReceiver {
+    private static final String TAG = ComplicationTimelineReceiver.class.getSimpleName();
+
+    private static final Class<?>[] PROVIDERS = {TemperatureProviderService.class,
+            HumidityProviderService.class, SummaryProviderService.class};
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        Log.d(TAG, "Forecast day expired, refreshing complications");
+        for (Class<?> provider : PROVIDERS) {
+            new ProviderUpdateRequester(context, new ComponentName(context, provider))
+                    .requestUpdateAll();
+        }
+    }
+
+    /**
+     * Schedules complications refresh, replacing previously scheduled one. The alarm does not
+     * wake the device; it is delivered the next time the watch is awake anyway.
+     *
+     * @param context     Application's context
+     * @param timeMillis  Time of the refresh in milliseconds
+     */
+    static void scheduleRefresh(Context context, long timeMillis) {
+        PendingIntent pendingIntent = PendingIntent.getBroadcast(context, 0,
+                new Intent(context, ComplicationTimelineReceiver.class),
+                PendingIntent.FLAG_UPDATE_CURRENT);
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        alarmManager.setExact(AlarmManager.RTC, timeMillis, pendingIntent);
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.complications;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.support.wearable.complications.ComplicationData;
+import android.support.wearable.complications.ComplicationManager;
+import android.util.Log;
+
+import com.example.android.sunshine.shared_resources.Constants;
+import com.example.android.sunshine.shared_resources.ForecastDay;
+import com.example.android.sunshine.shared_resources.WeatherIcons;
+import com.example.android.sunshine.sync.ForecastStore;
+import com.google.android.gms.common.ConnectionResult;
+import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.wearable.Asset;
+import com.google.android.gms.wearable.DataApi;
+import com.google.android.gms.wearable.DataMap;
+import com.google.android.gms.wearable.DataMapItem;
+import com.google.android.gms.wearable.NodeApi;
+import com.google.android.gms.wearable.PutDataRequest;
+import com.google.android.gms.wearable.Wearable;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes complication updates of all Sunshine providers on a single background thread.
+ *
+ * Update requests arriving before the pending batch is processed are collapsed into it (a
+ * repeated request for the same complication replaces the earlier one). Each batch connects to
+ * the Wearable API once, reads weather data once and answers every pending complication from
+ * that read.
+ */
+final class ComplicationUpdateEngine {
+    private static final String TAG = ComplicationUpdateEngine.class.getSimpleName();
+
+    /** Creates complication data of a single provider from weather data **/
+    interface DataBuilder {
+        /** Returns true if the provider needs the decoded summary icon **/
+        boolean needsSummaryIcon();
+
+        /**
+         * Creates complication data of given type or returns null if the type is not supported.
+         *
+         * @param weather  Weather data read for the batch
+         * @param dataType Type of complication data requested by the watch face
+         */
+        ComplicationData buildComplicationData(WeatherSnapshot weather, int dataType);
+    }
+
+    /** Complication waiting for its data **/
+    private static class PendingUpdate {
+        final DataBuilder builder;
+        final int complicationId;
+        final int dataType;
+        final ComplicationManager complicationManager;
+
+        PendingUpdate(DataBuilder builder, int complicationId, int dataType,
+                      ComplicationManager complicationManager) {
+            this.builder = builder;
+            this.complicationId = complicationId;
+            this.dataType = dataType;
+            this.complicationManager = complicationManager;
+        }
+    }
+
+    private static final ExecutorService sExecutor = Executors.newSingleThreadExecutor();
+    // Pending updates keyed by provider and complication id, guarded by itself
+    private static final Map<String, PendingUpdate> sPendingUpdates = new LinkedHashMap<>();
+    // True while a batch is queued on the executor but has not started yet
+    private static boolean sBatchScheduled;
+
+    private ComplicationUpdateEngine() {}
+
+    /**
+     * Queues complication update. The complication manager is updated from the background
+     * thread once weather data has been read.
+     *
+     * @param context             Provider's context
+     * @param builder             Provider creating complication data
+     * @param complicationId      Id of the complication to update
+     * @param dataType            Type of complication data requested by the watch face
+     * @param complicationManager Manager to deliver complication data to
+     */
+    static void requestUpdate(Context context, DataBuilder builder, int complicationId,
+                              int dataType, ComplicationManager complicationManager) {
+        synchronized (sPendingUpdates) {
+            sPendingUpdates.put(builder.getClass().getName() + "#" + complicationId,
+                    new PendingUpdate(builder, complicationId, dataType, complicationManager));
+            if (sBatchScheduled) {
+                // Will be answered by the batch that is already queued
+                return;
+            }
+            sBatchScheduled = true;
+        }
+
+        final Context appContext = context.getApplicationContext();
+        sExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                processPendingUpdates(appContext);
+            }
+        });
+    }
+
+    private static void processPendingUpdates(Context context) {
+        List<PendingUpdate> batch;
+        synchronized (sPendingUpdates) {
+            batch = new ArrayList<>(sPendingUpdates.values());
+            sPendingUpdates.clear();
+            sBatchScheduled = false;
+        }
+
+        boolean needsSummaryIcon = false;
+        for (PendingUpdate update : batch) {
+            needsSummaryIcon |= update.builder.needsSummaryIcon();
+        }
+
+        WeatherSnapshot weather = readWeather(context, needsSummaryIcon);
+        for (PendingUpdate update : batch) {
+            ComplicationData complicationData =
+                    update.builder.buildComplicationData(weather, update.dataType);
+            if (complicationData != null) {
+                update.complicationManager.updateComplicationData(
+                        update.complicationId, complicationData);
+            }
+        }
+        Log.d(TAG, "Updated " + batch.size() + " complications from a single read");
+
+        if (weather.isTimeBounded()) {
+            // Switch to the next forecast day once the published one expires
+            ComplicationTimelineReceiver.scheduleRefresh(context, weather.getEndTime());
+        }
+    }
+
+    /**
+     * Reads weather data stored in local DataItems.
+     *
+     * @param context          Application's context
+     * @param readSummaryIcon  true if summary icon asset should be decoded
+     */
+    private static WeatherSnapshot readWeather(Context context, boolean readSummaryIcon) {
+        Bitmap summaryIcon = null;
+
+        // Connect to Play Services and the Wearable API
+        GoogleApiClient googleApiClient = new GoogleApiClient.Builder(context)
+                .addApi(Wearable.API)
+                .build();
+
+        ConnectionResult connectionResult = googleApiClient.blockingConnect(
+                Constants.GOOGLE_API_CLIENT_TIMEOUT, TimeUnit.SECONDS);
+
+        if (!connectionResult.isSuccess() || !googleApiClient.isConnected()) {
+            Log.e(TAG, String.format(Constants.GOOGLE_API_CONNECTION_ERROR,
+                    connectionResult.getErrorCode()));
+            return createSnapshot(context, null, null, null, null, readSummaryIcon);
+        }
+
+        // Get wearable's node id
+        NodeApi.GetLocalNodeResult nodeResult =
+                Wearable.NodeApi.getLocalNode(googleApiClient).await();
+        String nodeId = nodeResult.getNode().getId();
+
+        DataMap temperature = readDataMap(googleApiClient, nodeId,
+                Constants.WEATHER_DATA_TEMP_PATH);
+        DataMap humidity = readDataMap(googleApiClient, nodeId,
+                Constants.WEATHER_DATA_HUMIDITY_PATH);
+        DataMap summary = null;
+
+        if (readSummaryIcon) {
+            summary = readDataMap(googleApiClient, nodeId, Constants.WEATHER_DATA_SUMMARY_PATH);
+            Asset asset = summary != null ? summary.getAsset(Constants.SUMMARY_KEY) : null;
+            if (asset != null) {
+                // Same icon is delivered many times, decode it only once
+                summaryIcon = WeatherIconCache.get(asset.getDigest());
+            }
+            if (asset != null && summaryIcon == null) {
+                // convert asset into a file descriptor and block until it's ready
+                InputStream assetInputStream = Wearable.DataApi.getFdForAsset(
+                        googleApiClient, asset).await().getInputStream();
+
+                if (assetInputStream != null) {
+                    summaryIcon = WeatherIconCache.put(context, asset.getDigest(),
+                            assetInputStream);
+                } else {
+                    Log.w(TAG, "Requested an unknown Asset.");
+                }
+            }
+        }
+
+        googleApiClient.disconnect();
+
+        return createSnapshot(context, temperature, humidity, summary, summaryIcon,
+                readSummaryIcon);
+    }
+
+    /**
+     * Creates snapshot from DataItem values. If the stored forecast covers the current day, the
+     * snapshot is bounded to that day, so the watch face stops showing it once the day is over.
+     * DataItems are only used while they belong to that day; after midnight the stored day
+     * takes over until the handheld sends current weather of the new day.
+     *
+     * @param temperature     Temperature DataItem or null
+     * @param humidity        Humidity DataItem or null
+     * @param summary         Summary DataItem or null
+     * @param summaryIcon     Icon decoded from the summary DataItem or null
+     * @param readSummaryIcon true if the snapshot needs an icon
+     */
+    private static WeatherSnapshot createSnapshot(Context context, DataMap temperature,
+                                                  DataMap humidity, DataMap summary,
+                                                  Bitmap summaryIcon, boolean readSummaryIcon) {
+        long now = System.currentTimeMillis();
+        List<ForecastDay> days = ForecastStore.getDays(context);
+        for (int i = 0; i < days.size(); i++) {
+            ForecastDay day = days.get(i);
+            long endTime = i + 1 < days.size()
+                    ? days.get(i + 1).getDate() : getNextDayStart(day.getDate());
+            if (day.getDate() <= now && now < endTime) {
+                boolean currentTemperature = isForDay(temperature, day);
+                Bitmap icon = isForDay(summary, day) ? summaryIcon : null;
+                if (icon == null && readSummaryIcon) {
+                    int iconResId = WeatherIcons.getIconResource(day.getWeatherId());
+                    if (iconResId != -1) {
+                        icon = WeatherIconCache.getResourceIcon(context, iconResId);
+                    }
+                }
+                return new WeatherSnapshot(
+                        currentTemperature ? temperature.getString(Constants.LOW_KEY)
+                                : day.getLow(),
+                        currentTemperature ? temperature.getString(Constants.HIGH_KEY)
+                                : day.getHigh(),
+                        isForDay(humidity, day) ? humidity.getDouble(Constants.HUMIDITY_KEY)
+                                : day.getHumidity(),
+                        icon, day.getDate(), endTime);
+            }
+        }
+        return new WeatherSnapshot(
+                temperature != null ? temperature.getString(Constants.LOW_KEY) : null,
+                temperature != null ? temperature.getString(Constants.HIGH_KEY) : null,
+                humidity != null ? humidity.getDouble(Constants.HUMIDITY_KEY)
+                        : WeatherSnapshot.NO_HUMIDITY,
+                summaryIcon);
+    }
+
+    /** Returns true if DataItem was stamped with the date of given forecast day **/
+    private static boolean isForDay(DataMap dataMap, ForecastDay day) {
+        return dataMap != null && dataMap.getLong(Constants.DATE_KEY) == day.getDate();
+    }
+
+    /** Returns start of the calendar day following the day starting at given time **/
+    private static long getNextDayStart(long dayStart) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(dayStart);
+        calendar.add(Calendar.DAY_OF_MONTH, 1);
+        return calendar.getTimeInMillis();
+    }
+
+    private static DataMap readDataMap(GoogleApiClient googleApiClient, String nodeId,
+                                       String path) {
+        Uri weatherDataUri = new Uri.Builder().scheme(PutDataRequest.WEAR_URI_SCHEME)
+                .authority(nodeId)
+                .path(path).build();
+
+        DataApi.DataItemResult dataItemResult =
+                Wearable.DataApi.getDataItem(googleApiClient, weatherDataUri).await();
+
+        if (dataItemResult.getStatus().isSuccess() && dataItemResult.getDataItem() != null) {
+            return DataMapItem.fromDataItem(dataItemResult.getDataItem()).getDataMap();
+        }
+        return null;
+    }
+}
@@ -15,9 +15,6 @@
  */
 package com.example.android.sunshine.complications;
 
-import android.content.Context;
-import android.net.Uri;
-import android.os.AsyncTask;
 import android.support.wearable.complications.ComplicationData;
 import android.support.wearable.complications.ComplicationManager;
 import android.support.wearable.complications.ComplicationProviderService;
@@ -25,22 +22,13 @@ import android.support.wearable.complications.ComplicationText;
 import android.util.Log;
 
 import com.example.android.sunshine.R;
-import com.example.android.sunshine.shared_resources.Constants;
 import com.example.android.sunshine.sync.MessageService;
-import com.google.android.gms.common.ConnectionResult;
-import com.google.android.gms.common.api.GoogleApiClient;
-import com.google.android.gms.wearable.DataApi;
-import com.google.android.gms.wearable.DataMapItem;
-import com.google.android.gms.wearable.NodeApi;
-import com.google.android.gms.wearable.PutDataRequest;
-import com.google.android.gms.wearable.Wearable;
-
-import java.util.concurrent.TimeUnit;
 
 /**
  * Sunshine Watch Face Complication data provider for humidity percentage complication.
  */
-public class HumidityProviderService extends ComplicationProviderService {
+public class HumidityProviderService extends ComplicationProviderService
+        implements ComplicationUpdateEngine.DataBuilder {
 
     private static final String TAG = "WeatherProvider";
 
@@ -75,8 +63,8 @@ public class HumidityProviderService extends ComplicationProviderService {
         Log.d(TAG, "onComplicationUpdate(): " + complicationId);
 
         // Retrieve humidity data in background thread
-            new FetchWeatherAsyncTask(this, complicationId, dataType,
-                    complicationManager).execute();
+        ComplicationUpdateEngine.requestUpdate(this, this, complicationId, dataType,
+                complicationManager);
     }
 
     /*
@@ -89,103 +77,50 @@ public class HumidityProviderService extends ComplicationProviderService {
         super.onComplicationDeactivated(complicationId);
     }
 
-    /**
-     * A background task to load the weather data via Wear DataApi.
-     */
-    private class FetchWeatherAsyncTask extends
-            AsyncTask<Void, Void, Double> {
-
-        private Context mContext;
-        private int mComplicationId;
-        private int mDataType;
-        private ComplicationManager mComplicationManager;
-
-        public FetchWeatherAsyncTask(Context context, int complicationId,
-                                     int dataType, ComplicationManager complicationManager) {
-            mContext = context;
-            mComplicationId = complicationId;
-            mDataType = dataType;
-            mComplicationManager = complicationManager;
-        }
-
-        @Override
-        protected Double doInBackground(Void... params) {
-            Double humidity = -1d;
-
-            // Connect to Play Services and the Wearable API
-            GoogleApiClient googleApiClient = new GoogleApiClient.Builder(mContext)
-                    .addApi(Wearable.API)
-                    .build();
-
-            ConnectionResult connectionResult = googleApiClient.blockingConnect(
-                    Constants.GOOGLE_API_CLIENT_TIMEOUT, TimeUnit.SECONDS);
-
-            if (!connectionResult.isSuccess() || !googleApiClient.isConnected()) {
-                Log.e(TAG, String.format(Constants.GOOGLE_API_CONNECTION_ERROR,
-                        connectionResult.getErrorCode()));
-            }
-
-            // Get wearable's node it
-            NodeApi.GetLocalNodeResult nodeResult = Wearable.NodeApi.getLocalNode(googleApiClient).await();
-            // Create Uri for humidity data
-            Uri weatherDataUri = new Uri.Builder().scheme(PutDataRequest.WEAR_URI_SCHEME)
-                    .authority(nodeResult.getNode().getId())
-                    .path(Constants.WEATHER_DATA_HUMIDITY_PATH).build();
-
-            DataApi.DataItemResult dataItemResult =
-                    Wearable.DataApi.getDataItem(googleApiClient, weatherDataUri).await();
-
-            if (dataItemResult.getStatus().isSuccess() && dataItemResult.getDataItem() != null) {
-                DataMapItem dataMapItem = DataMapItem.fromDataItem(dataItemResult.getDataItem());
-                humidity = dataMapItem.getDataMap().getDouble(Constants.HUMIDITY_KEY);
-            }
-
-            googleApiClient.disconnect();
+    @Override
+    public boolean needsSummaryIcon() {
+        return false;
+    }
 
-            return humidity;
+    @Override
+    public ComplicationData buildComplicationData(WeatherSnapshot weather, int dataType) {
+        ComplicationData complicationData = null;
+        ComplicationData.Builder builder;
+        double humidity = weather.getHumidity();
+        String formattedHumidity;
+        if (humidity < 0) {
+            formattedHumidity = getString(R.string.complications_no_data);
+        } else {
+            formattedHumidity = String.format("%d%%", (int) humidity);
         }
 
-        @Override
-        protected void onPostExecute(Double humidity) {
-            ComplicationData complicationData = null;
-            String formattedHumidity;
-            if (humidity < 0) {
-                formattedHumidity = getString(R.string.complications_no_data);
-            } else {
-                formattedHumidity = String.format("%d%%", humidity.intValue());
-            }
-
-            switch (mDataType) {
-                case ComplicationData.TYPE_SHORT_TEXT:
-                    Log.d(TAG, "TYPE_SHORT_TEXT");
-                    complicationData = new ComplicationData.Builder(ComplicationData.TYPE_SHORT_TEXT)
-                            .setShortTitle(ComplicationText.plainText(
-                                    getString(R.string.complications_humidity_label)))
-                            .setShortText(ComplicationText.plainText(formattedHumidity))
-                            .setTapAction(MessageService.getLaunchSunshineIntent(mContext))
-                            .build();
-                    break;
-                case ComplicationData.TYPE_RANGED_VALUE:
-                    Log.d(TAG, "TYPE_RANGED_VALUE");
-                    complicationData = new ComplicationData.Builder(ComplicationData.TYPE_RANGED_VALUE)
-                            .setValue(humidity.floatValue())
-                            .setMinValue(0f)
-                            .setMaxValue(100f)
-                            .setShortTitle(ComplicationText.plainText(
-                                    getString(R.string.complications_humidity_label)))
-                            .setShortText(ComplicationText.plainText(formattedHumidity))
-                            .setTapAction(MessageService.getLaunchSunshineIntent(mContext))
-                            .build();
-                    break;
-                default:
-                    if (Log.isLoggable(TAG, Log.WARN)) {
-                        Log.w(TAG, "Unexpected temperature complication type " + mDataType);
-                    }
-            }
-
-            if (complicationData != null) {
-                mComplicationManager.updateComplicationData(mComplicationId, complicationData);
-            }
+        switch (dataType) {
+            case ComplicationData.TYPE_SHORT_TEXT:
+                Log.d(TAG, "TYPE_SHORT_TEXT");
+                builder = new ComplicationData.Builder(ComplicationData.TYPE_SHORT_TEXT)
+                        .setShortTitle(ComplicationText.plainText(
+                                getString(R.string.complications_humidity_label)))
+                        .setShortText(ComplicationText.plainText(formattedHumidity))
+                        .setTapAction(MessageService.getLaunchSunshineIntent(this));
+                complicationData = weather.applyTimeWindow(builder).build();
+                break;
+            case ComplicationData.TYPE_RANGED_VALUE:
+                Log.d(TAG, "TYPE_RANGED_VALUE");
+                builder = new ComplicationData.Builder(ComplicationData.TYPE_RANGED_VALUE)
+                        .setValue((float) humidity)
+                        .setMinValue(0f)
+                        .setMaxValue(100f)
+                        .setShortTitle(ComplicationText.plainText(
+                                getString(R.string.complications_humidity_label)))
+                        .setShortText(ComplicationText.plainText(formattedHumidity))
+                        .setTapAction(MessageService.getLaunchSunshineIntent(this));
+                complicationData = weather.applyTimeWindow(builder).build();
+                break;
+            default:
+                if (Log.isLoggable(TAG, Log.WARN)) {
+                    Log.w(TAG, "Unexpected temperature complication type " + dataType);
+                }
         }
+        return complicationData;
     }
 }
@@ -15,36 +15,21 @@
  */
 package com.example.android.sunshine.complications;
 
-import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.drawable.Icon;
-import android.net.Uri;
-import android.os.AsyncTask;
 import android.support.wearable.complications.ComplicationData;
 import android.support.wearable.complications.ComplicationManager;
 import android.support.wearable.complications.ComplicationProviderService;
 import android.util.Log;
 
 import com.example.android.sunshine.R;
-import com.example.android.sunshine.shared_resources.Constants;
 import com.example.android.sunshine.sync.MessageService;
-import com.google.android.gms.common.ConnectionResult;
-import com.google.android.gms.common.api.GoogleApiClient;
-import com.google.android.gms.wearable.Asset;
-import com.google.android.gms.wearable.DataApi;
-import com.google.android.gms.wearable.DataMapItem;
-import com.google.android.gms.wearable.NodeApi;
-import com.google.android.gms.wearable.PutDataRequest;
-import com.google.android.gms.wearable.Wearable;
-
-import java.io.InputStream;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Sunshine Watch Face Complication data provider for current weather summary complication.
  */
-public class SummaryProviderService extends ComplicationProviderService {
+public class SummaryProviderService extends ComplicationProviderService
+        implements ComplicationUpdateEngine.DataBuilder {
 
     private static final String TAG = "WeatherProvider";
 
@@ -79,8 +64,8 @@ public class SummaryProviderService extends ComplicationProviderService {
         Log.d(TAG, "onComplicationUpdate(): " + complicationId);
 
         // Retrieve summary data in background thread
-        new SummaryProviderService.FetchWeatherAsyncTask(this, complicationId, dataType,
-                complicationManager).execute();
+        ComplicationUpdateEngine.requestUpdate(this, this, complicationId, dataType,
+                complicationManager);
     }
 
     /*
@@ -93,95 +78,33 @@ public class SummaryProviderService extends ComplicationProviderService {
         super.onComplicationDeactivated(complicationId);
     }
 
-    /**
-     * A background task to load the weather data via Wear DataApi.
-     */
-    private class FetchWeatherAsyncTask extends
-            AsyncTask<Void, Void, Bitmap> {
-
-        private Context mContext;
-        private int mComplicationId;
-        private int mDataType;
-        private ComplicationManager mComplicationManager;
-
-        public FetchWeatherAsyncTask(Context context, int complicationId,
-                                     int dataType, ComplicationManager complicationManager) {
-            mContext = context;
-            mComplicationId = complicationId;
-            mDataType = dataType;
-            mComplicationManager = complicationManager;
-        }
-
-        @Override
-        protected Bitmap doInBackground(Void... params) {
-            Bitmap weatherIcon = BitmapFactory.decodeResource(getResources(), R.mipmap.ic_launcher);
-
-            // Connect to Play Services and the Wearable API
-            GoogleApiClient googleApiClient = new GoogleApiClient.Builder(mContext)
-                    .addApi(Wearable.API)
-                    .build();
-
-            ConnectionResult connectionResult = googleApiClient.blockingConnect(
-                    Constants.GOOGLE_API_CLIENT_TIMEOUT, TimeUnit.SECONDS);
-
-            if (!connectionResult.isSuccess() || !googleApiClient.isConnected()) {
-                Log.e(TAG, String.format(Constants.GOOGLE_API_CONNECTION_ERROR,
-                        connectionResult.getErrorCode()));
-            }
-
-            // Get wearable's node it
-            NodeApi.GetLocalNodeResult nodeResult = Wearable.NodeApi.getLocalNode(googleApiClient).await();
-            // Create Uri for humidity data
-            Uri weatherDataUri = new Uri.Builder().scheme(PutDataRequest.WEAR_URI_SCHEME)
-                    .authority(nodeResult.getNode().getId())
-                    .path(Constants.WEATHER_DATA_SUMMARY_PATH).build();
-
-            DataApi.DataItemResult dataItemResult =
-                    Wearable.DataApi.getDataItem(googleApiClient, weatherDataUri).await();
-
-            if (dataItemResult.getStatus().isSuccess() && dataItemResult.getDataItem() != null) {
-                DataMapItem dataMapItem = DataMapItem.fromDataItem(dataItemResult.getDataItem());
-                Asset summary = dataMapItem.getDataMap().getAsset(Constants.SUMMARY_KEY);
-                if (summary != null) {
-                    // convert asset into a file descriptor and block until it's ready
-                    InputStream assetInputStream = Wearable.DataApi.getFdForAsset(
-                            googleApiClient, summary).await().getInputStream();
+    @Override
+    public boolean needsSummaryIcon() {
+        return true;
+    }
 
-                    if (assetInputStream != null) {
-                        weatherIcon = BitmapFactory.decodeStream(assetInputStream);
-                    } else {
-                        Log.w(TAG, "Requested an unknown Asset.");
-                    }
+    @Override
+    public ComplicationData buildComplicationData(WeatherSnapshot weather, int dataType) {
+        ComplicationData complicationData = null;
+        Bitmap icon = weather.getSummaryIcon();
+
+        switch (dataType) {
+            case ComplicationData.TYPE_SMALL_IMAGE:
+                Log.d(TAG, "TYPE_SMALL_IMAGE");
+                if (icon == null) {
+                    icon = WeatherIconCache.getResourceIcon(this, R.mipmap.ic_launcher);
+                }
+                complicationData = new ComplicationData.Builder(ComplicationData.TYPE_SMALL_IMAGE)
+                        .setImageStyle(ComplicationData.IMAGE_STYLE_ICON)
+                        .setSmallImage(Icon.createWithBitmap(icon))
+                        .setTapAction(MessageService.getLaunchSunshineIntent(this))
+                        .build();
+                break;
+            default:
+                if (Log.isLoggable(TAG, Log.WARN)) {
+                    Log.w(TAG, "Unexpected temperature complication type " + dataType);
                 }
-            }
-
-            googleApiClient.disconnect();
-
-            return weatherIcon;
-        }
-
-        @Override
-        protected void onPostExecute(Bitmap icon) {
-            ComplicationData complicationData = null;
-
-            switch (mDataType) {
-                case ComplicationData.TYPE_SMALL_IMAGE:
-                    Log.d(TAG, "TYPE_SMALL_IMAGE");
-                    complicationData = new ComplicationData.Builder(ComplicationData.TYPE_SMALL_IMAGE)
-                            .setImageStyle(ComplicationData.IMAGE_STYLE_ICON)
-                            .setSmallImage(Icon.createWithBitmap(icon))
-                            .setTapAction(MessageService.getLaunchSunshineIntent(mContext))
-                            .build();
-                    break;
-                default:
-                    if (Log.isLoggable(TAG, Log.WARN)) {
-                        Log.w(TAG, "Unexpected temperature complication type " + mDataType);
-                    }
-            }
-
-            if (complicationData != null) {
-                mComplicationManager.updateComplicationData(mComplicationId, complicationData);
-            }
         }
+        return complicationData;
     }
 }
@@ -15,9 +15,6 @@
  */
 package com.example.android.sunshine.complications;
 
-import android.content.Context;
-import android.net.Uri;
-import android.os.AsyncTask;
 import android.support.wearable.complications.ComplicationData;
 import android.support.wearable.complications.ComplicationManager;
 import android.support.wearable.complications.ComplicationProviderService;
@@ -25,22 +22,13 @@ import android.support.wearable.complications.ComplicationText;
 import android.util.Log;
 
 import com.example.android.sunshine.R;
-import com.example.android.sunshine.shared_resources.Constants;
 import com.example.android.sunshine.sync.MessageService;
-import com.google.android.gms.common.ConnectionResult;
-import com.google.android.gms.common.api.GoogleApiClient;
-import com.google.android.gms.wearable.DataApi;
-import com.google.android.gms.wearable.DataMapItem;
-import com.google.android.gms.wearable.NodeApi;
-import com.google.android.gms.wearable.PutDataRequest;
-import com.google.android.gms.wearable.Wearable;
-
-import java.util.concurrent.TimeUnit;
 
 /**
  * Sunshine Watch Face Complication data provider for high/low temperature complication.
  */
-public class TemperatureProviderService extends ComplicationProviderService {
+public class TemperatureProviderService extends ComplicationProviderService
+        implements ComplicationUpdateEngine.DataBuilder {
 
     private static final String TAG = "WeatherProvider";
 
@@ -75,7 +63,8 @@ public class TemperatureProviderService extends ComplicationProviderService {
         Log.d(TAG, "onTemperatureComplicationUpdate(): " + complicationId);
 
         // Retrieve temperature data in background thread
-        new FetchWeatherAsyncTask(this, complicationId, dataType, complicationManager).execute();
+        ComplicationUpdateEngine.requestUpdate(this, this, complicationId, dataType,
+                complicationManager);
     }
 
     /*
@@ -88,97 +77,36 @@ public class TemperatureProviderService extends ComplicationProviderService {
         super.onComplicationDeactivated(complicationId);
     }
 
-    /**
-     * A background task to load the weather data via Wear DataApi.
-     */
-    private class FetchWeatherAsyncTask extends
-            AsyncTask<Void, Void, DataWrapper> {
-
-        private Context mContext;
-        private int mComplicationId;
-        private int mDataType;
-        private ComplicationManager mComplicationManager;
-
-        public FetchWeatherAsyncTask(Context context, int complicationId,
-                                     int dataType, ComplicationManager complicationManager) {
-            mContext = context;
-            mComplicationId = complicationId;
-            mDataType = dataType;
-            mComplicationManager = complicationManager;
-        }
-
-        @Override
-        protected DataWrapper doInBackground(Void... params) {
-            String low = getString(R.string.complications_temperature_label);
-            String high = getString(R.string.complications_no_data);
-
-            // Connect to Play Services and the Wearable API
-            GoogleApiClient googleApiClient = new GoogleApiClient.Builder(mContext)
-                    .addApi(Wearable.API)
-                    .build();
-
-            ConnectionResult connectionResult = googleApiClient.blockingConnect(
-                    Constants.GOOGLE_API_CLIENT_TIMEOUT, TimeUnit.SECONDS);
-
-            if (!connectionResult.isSuccess() || !googleApiClient.isConnected()) {
-                Log.e(TAG, String.format(Constants.GOOGLE_API_CONNECTION_ERROR,
-                        connectionResult.getErrorCode()));
-            }
-
-            // Get wearable's node it
-            NodeApi.GetLocalNodeResult nodeResult = Wearable.NodeApi.getLocalNode(googleApiClient).await();
-            // Create Uri for temperature data
-            Uri weatherDataUri = new Uri.Builder().scheme(PutDataRequest.WEAR_URI_SCHEME)
-                    .authority(nodeResult.getNode().getId())
-                    .path(Constants.WEATHER_DATA_TEMP_PATH).build();
-
-            DataApi.DataItemResult dataItemResult =
-                    Wearable.DataApi.getDataItem(googleApiClient, weatherDataUri).await();
-
-            if (dataItemResult.getStatus().isSuccess() && dataItemResult.getDataItem() != null) {
-                DataMapItem dataMapItem = DataMapItem.fromDataItem(dataItemResult.getDataItem());
-                low = dataMapItem.getDataMap().getString(Constants.LOW_KEY);
-                high = dataMapItem.getDataMap().getString(Constants.HIGH_KEY);
-            }
-
-            googleApiClient.disconnect();
-
-            return new DataWrapper(low, high);
-        }
-
-        @Override
-        protected void onPostExecute(DataWrapper data) {
-            ComplicationData complicationData = null;
-
-            switch (mDataType) {
-                case ComplicationData.TYPE_SHORT_TEXT:
-                    Log.d(TAG, "TYPE_SHORT_TEXT");
-                    complicationData = new ComplicationData.Builder(ComplicationData.TYPE_SHORT_TEXT)
-                            .setShortTitle(ComplicationText.plainText(data.mLow))
-                            .setShortText(ComplicationText.plainText(data.mHigh))
-                            .setTapAction(MessageService.getLaunchSunshineIntent(mContext))
-                            .build();
-                    break;
-                default:
-                    if (Log.isLoggable(TAG, Log.WARN)) {
-                        Log.w(TAG, "Unexpected temperature complication type " + mDataType);
-                    }
-            }
-
-            if (complicationData != null) {
-                mComplicationManager.updateComplicationData(mComplicationId, complicationData);
-            }
-        }
+    @Override
+    public boolean needsSummaryIcon() {
+        return false;
     }
 
-    /** Helper class used to pass retrieved data to OnPostExecute **/
-    private class DataWrapper {
-        private String mLow;
-        private String mHigh;
+    @Override
+    public ComplicationData buildComplicationData(WeatherSnapshot weather, int dataType) {
+        ComplicationData complicationData = null;
+        ComplicationData.Builder builder;
+        String low = weather.getLow();
+        String high = weather.getHigh();
+        if (low == null || high == null) {
+            low = getString(R.string.complications_temperature_label);
+            high = getString(R.string.complications_no_data);
+        }
 
-        DataWrapper(String low, String high) {
-            mLow = low;
-            mHigh = high;
+        switch (dataType) {
+            case ComplicationData.TYPE_SHORT_TEXT:
+                Log.d(TAG, "TYPE_SHORT_TEXT");
+                builder = new ComplicationData.Builder(ComplicationData.TYPE_SHORT_TEXT)
+                        .setShortTitle(ComplicationText.plainText(low))
+                        .setShortText(ComplicationText.plainText(high))
+                        .setTapAction(MessageService.getLaunchSunshineIntent(this));
+                complicationData = weather.applyTimeWindow(builder).build();
+                break;
+            default:
+                if (Log.isLoggable(TAG, Log.WARN)) {
+                    Log.w(TAG, "Unexpected temperature complication type " + dataType);
+                }
         }
+        return complicationData;
     }
 }
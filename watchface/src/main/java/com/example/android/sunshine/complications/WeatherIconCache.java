@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.complications;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Process-wide LRU cache of weather icons decoded at the size summary complications are drawn
+ * at. Asset icons are keyed by their digest, so the same icon is only decoded once no matter
+ * how many times it is delivered.
+ */
+final class WeatherIconCache {
+    private static final String TAG = WeatherIconCache.class.getSimpleName();
+
+    // Watch face draws small image complications at 35% of its radius
+    private static final float ICON_SIZE_RATIO = 0.5f * 0.35f;
+    // Enough for a few dozen icons of the target size
+    private static final int MAX_SIZE_BYTES = 512 * 1024;
+    private static final String RESOURCE_KEY_PREFIX = "resource:";
+
+    private static final LruCache<String, Bitmap> sIcons =
+            new LruCache<String, Bitmap>(MAX_SIZE_BYTES) {
+                @Override
+                protected int sizeOf(String key, Bitmap icon) {
+                    return icon.getByteCount();
+                }
+            };
+
+    private WeatherIconCache() {}
+
+    /**
+     * Returns cached icon or null if the icon has not been decoded yet.
+     *
+     * @param digest Digest of the icon asset
+     */
+    static Bitmap get(String digest) {
+        return digest != null ? sIcons.get(digest) : null;
+    }
+
+    /**
+     * Decodes icon from stream at the target size and caches it.
+     *
+     * @param context Application's context
+     * @param digest  Digest of the icon asset, may be null to skip caching
+     * @param stream  Encoded icon, closed by this method
+     * @return Decoded icon or null if the stream could not be decoded
+     */
+    static Bitmap put(Context context, String digest, InputStream stream) {
+        byte[] data;
+        try {
+            data = readFully(stream);
+        } catch (IOException e) {
+            Log.e(TAG, e.getMessage(), e);
+            return null;
+        }
+
+        int size = getIconSize(context);
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        options.inSampleSize = calculateSampleSize(options, size);
+        options.inJustDecodeBounds = false;
+
+        Bitmap icon = scale(BitmapFactory.decodeByteArray(data, 0, data.length, options), size);
+        if (icon != null && digest != null) {
+            sIcons.put(digest, icon);
+        }
+        Log.d(TAG, "Decoded icon " + digest + ", " + getStats());
+        return icon;
+    }
+
+    /**
+     * Returns icon decoded from resources at the target size.
+     *
+     * @param context Application's context
+     * @param resId   Drawable resource id
+     */
+    static Bitmap getResourceIcon(Context context, int resId) {
+        String key = RESOURCE_KEY_PREFIX + resId;
+        Bitmap icon = sIcons.get(key);
+        if (icon == null) {
+            int size = getIconSize(context);
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            BitmapFactory.decodeResource(context.getResources(), resId, options);
+            options.inSampleSize = calculateSampleSize(options, size);
+            options.inJustDecodeBounds = false;
+
+            icon = scale(BitmapFactory.decodeResource(context.getResources(), resId, options),
+                    size);
+            if (icon != null) {
+                sIcons.put(key, icon);
+            }
+        }
+        return icon;
+    }
+
+    /** Returns hit/miss counters and memory usage of the cache **/
+    static String getStats() {
+        return "hits " + sIcons.hitCount() + ", misses " + sIcons.missCount()
+                + ", " + sIcons.size() + "/" + sIcons.maxSize() + " bytes";
+    }
+
+    /**
+     * Returns edge length of complication icons in pixels.
+     *
+     * @param context Application's context
+     */
+    private static int getIconSize(Context context) {
+        return Math.max(1, (int) (context.getResources().getDisplayMetrics().widthPixels
+                * ICON_SIZE_RATIO));
+    }
+
+    /**
+     * Returns largest power of two sample size that keeps the bitmap at least as large as the
+     * target size.
+     */
+    private static int calculateSampleSize(BitmapFactory.Options options, int size) {
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= size
+                && options.outHeight / (sampleSize * 2) >= size) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private static Bitmap scale(Bitmap bitmap, int size) {
+        if (bitmap == null || (bitmap.getWidth() == size && bitmap.getHeight() == size)) {
+            return bitmap;
+        }
+        Bitmap scaled = Bitmap.createScaledBitmap(bitmap, size, size, true);
+        if (scaled != bitmap) {
+            bitmap.recycle();
+        }
+        return scaled;
+    }
+
+    private static byte[] readFully(InputStream stream) throws IOException {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int count;
+            while ((count = stream.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.complications;
+
+import android.graphics.Bitmap;
+import android.support.wearable.complications.ComplicationData;
+
+/**
+ * Weather data read from local DataItems in a single pass. Values missing on the watch are
+ * null (or {@link #NO_HUMIDITY} for humidity).
+ *
+ * Temperature and humidity taken from the stored forecast are only valid for the forecast day
+ * they belong to, which is reported as the time window of the snapshot.
+ */
+final class WeatherSnapshot {
+    static final double NO_HUMIDITY = -1d;
+    static final long NO_TIME_BOUND = -1L;
+
+    private final String mLow;
+    private final String mHigh;
+    private final double mHumidity;
+    private final Bitmap mSummaryIcon;
+    private final long mStartTime;
+    private final long mEndTime;
+
+    WeatherSnapshot(String low, String high, double humidity, Bitmap summaryIcon) {
+        this(low, high, humidity, summaryIcon, NO_TIME_BOUND, NO_TIME_BOUND);
+    }
+
+    WeatherSnapshot(String low, String high, double humidity, Bitmap summaryIcon,
+                    long startTime, long endTime) {
+        mLow = low;
+        mHigh = high;
+        mHumidity = humidity;
+        mSummaryIcon = summaryIcon;
+        mStartTime = startTime;
+        mEndTime = endTime;
+    }
+
+    String getLow() {
+        return mLow;
+    }
+
+    String getHigh() {
+        return mHigh;
+    }
+
+    double getHumidity() {
+        return mHumidity;
+    }
+
+    Bitmap getSummaryIcon() {
+        return mSummaryIcon;
+    }
+
+    /** Returns true if temperature and humidity are only valid within a time window **/
+    boolean isTimeBounded() {
+        return mStartTime != NO_TIME_BOUND && mEndTime != NO_TIME_BOUND;
+    }
+
+    /** Start of the time window in milliseconds or {@link #NO_TIME_BOUND} **/
+    long getStartTime() {
+        return mStartTime;
+    }
+
+    /** End of the time window in milliseconds or {@link #NO_TIME_BOUND} **/
+    long getEndTime() {
+        return mEndTime;
+    }
+
+    /**
+     * Limits complication data to the time window of the snapshot, if there is one. Watch face
+     * stops showing expired data on its own.
+     *
+     * @param builder Builder of complication data showing temperature or humidity
+     */
+    ComplicationData.Builder applyTimeWindow(ComplicationData.Builder builder) {
+        if (isTimeBounded()) {
+            builder.setStartTime(mStartTime).setEndTime(mEndTime);
+        }
+        return builder;
+    }
+}
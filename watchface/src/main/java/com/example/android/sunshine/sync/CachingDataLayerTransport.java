@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.sync;
+
+import com.example.android.sunshine.shared_resources.datalayer.GmsDataLayerTransport;
+import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.wearable.CapabilityApi;
+import com.google.android.gms.wearable.Wearable;
+
+/**
+ * {@link GmsDataLayerTransport} resolving capable nodes through {@link CapableNodesCache}, so
+ * messages don't query capabilities every time.
+ */
+class CachingDataLayerTransport extends GmsDataLayerTransport {
+
+    /**
+     * @param googleApiClient Connected client with Wearable API
+     */
+    CachingDataLayerTransport(GoogleApiClient googleApiClient) {
+        super(googleApiClient);
+    }
+
+    @Override
+    protected String findNodeId(String capabilityName) {
+        if (!CapableNodesCache.contains(capabilityName)) {
+            // Detect capable nodes
+            CapabilityApi.GetCapabilityResult result =
+                    Wearable.CapabilityApi.getCapability(
+                            getGoogleApiClient(), capabilityName,
+                            CapabilityApi.FILTER_REACHABLE).await();
+            if (result.getStatus().isSuccess()) {
+                CapableNodesCache.update(result.getCapability());
+            }
+        }
+        return CapableNodesCache.getBestNodeId(capabilityName);
+    }
+
+    @Override
+    protected void onSendFailed(String capabilityName) {
+        // Node may be gone, query capability again next time
+        CapableNodesCache.invalidate(capabilityName);
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.sync;
+
+import android.util.Log;
+
+import com.google.android.gms.wearable.CapabilityInfo;
+import com.google.android.gms.wearable.WearableListenerService;
+
+/**
+ * Simple wearable listener service that keeps {@link CapableNodesCache} current whenever
+ * nodes providing Sunshine capabilities connect or disconnect.
+ */
+public class CapabilityListenerService extends WearableListenerService {
+    private static final String TAG = CapabilityListenerService.class.getSimpleName();
+
+    @Override
+    public void onCapabilityChanged(CapabilityInfo capabilityInfo) {
+        Log.d(TAG, "onCapabilityChanged: " + capabilityInfo.getName());
+        CapableNodesCache.update(capabilityInfo);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.sync;
+
+import android.util.Log;
+
+import com.google.android.gms.wearable.CapabilityInfo;
+import com.google.android.gms.wearable.Node;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide cache of the best node able to handle each Sunshine capability. The cache is
+ * kept current by {@link CapabilityListenerService}, so sending a message only requires a
+ * capability query when the process has not seen the capability yet.
+ */
+final class CapableNodesCache {
+    private static final String TAG = CapableNodesCache.class.getSimpleName();
+
+    // Marks a capability that is known to have no reachable nodes
+    private static final String NO_NODE = "";
+
+    // Maps capability name to the id of the best node (or NO_NODE)
+    private static final ConcurrentHashMap<String, String> sBestNodes = new ConcurrentHashMap<>();
+
+    private CapableNodesCache() {}
+
+    /**
+     * Returns true if the cache holds an up to date entry for the capability.
+     *
+     * @param capabilityName Name of the capability
+     */
+    static boolean contains(String capabilityName) {
+        return sBestNodes.containsKey(capabilityName);
+    }
+
+    /**
+     * Returns id of the best node with given capability or null if there is no such node.
+     *
+     * @param capabilityName Name of the capability
+     */
+    static String getBestNodeId(String capabilityName) {
+        String nodeId = sBestNodes.get(capabilityName);
+        return NO_NODE.equals(nodeId) ? null : nodeId;
+    }
+
+    /**
+     * Replaces cached entry with the nodes reported in capability info.
+     *
+     * @param capabilityInfo Capability and its reachable nodes
+     */
+    static void update(CapabilityInfo capabilityInfo) {
+        String bestNodeId = pickBestNodeId(capabilityInfo.getNodes());
+        sBestNodes.put(capabilityInfo.getName(), bestNodeId == null ? NO_NODE : bestNodeId);
+        Log.d(TAG, "update: " + capabilityInfo.getName() + " -> " + bestNodeId);
+    }
+
+    /**
+     * Drops cached entry so the next message triggers a fresh capability query.
+     *
+     * @param capabilityName Name of the capability
+     */
+    static void invalidate(String capabilityName) {
+        sBestNodes.remove(capabilityName);
+    }
+
+    /** Helper method to find best node to send message to
+     * @param nodes Capable Nodes
+     * @return Id of best node
+     */
+    private static String pickBestNodeId(Set<Node> nodes) {
+        String bestNodeId = null;
+        // Find a nearby node or pick one arbitrarily
+        for (Node node : nodes) {
+            if (node.isNearby()) {
+                return node.getId();
+            }
+            bestNodeId = node.getId();
+        }
+        return bestNodeId;
+    }
+}
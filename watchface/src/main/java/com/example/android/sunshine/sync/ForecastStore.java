@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.sync;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.example.android.sunshine.shared_resources.Constants;
+import com.example.android.sunshine.shared_resources.ForecastDay;
+import com.google.android.gms.wearable.DataMap;
+
+import org.json.JSONException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Local store of the multi-day forecast received from the handheld device. Updates carry only
+ * the days changed since the version this store acknowledged, and are applied on top of it.
+ */
+public final class ForecastStore {
+    private static final String TAG = ForecastStore.class.getSimpleName();
+
+    private static final String PREFERENCES_NAME = "forecast_store";
+    private static final String KEY_VERSION = "version";
+    private static final String KEY_DAYS = "days";
+
+    private ForecastStore() {}
+
+    /**
+     * Applies forecast update received from the handheld device.
+     *
+     * @param context Application's context
+     * @param dataMap Forecast update
+     * @return Version stored after the update or {@link Constants#NO_FORECAST_VERSION} if the
+     * update is based on a version this store does not have
+     */
+    static synchronized int applyUpdate(Context context, DataMap dataMap) {
+        SharedPreferences preferences = getPreferences(context);
+        int storedVersion = preferences.getInt(KEY_VERSION, Constants.NO_FORECAST_VERSION);
+        int version = dataMap.getInt(Constants.FORECAST_VERSION_KEY);
+        int baseVersion = dataMap.getInt(Constants.FORECAST_BASE_VERSION_KEY);
+
+        if (version == storedVersion && baseVersion != Constants.NO_FORECAST_VERSION) {
+            // Delta already applied, e.g. DataItem redelivered. Full transfers are always
+            // applied, the handheld's version counter restarts when its data is cleared
+            return storedVersion;
+        }
+        if (baseVersion != Constants.NO_FORECAST_VERSION && baseVersion != storedVersion) {
+            Log.w(TAG, "Cannot apply forecast " + version + " on top of " + storedVersion
+                    + " (base " + baseVersion + ")");
+            return Constants.NO_FORECAST_VERSION;
+        }
+
+        try {
+            // Start from stored days unless this is a full transfer
+            TreeMap<Long, ForecastDay> days = new TreeMap<>();
+            if (baseVersion != Constants.NO_FORECAST_VERSION) {
+                for (ForecastDay day : ForecastDay.fromJsonArray(
+                        preferences.getString(KEY_DAYS, null))) {
+                    days.put(day.getDate(), day);
+                }
+            }
+
+            // Apply changed days
+            ArrayList<DataMap> changedDays =
+                    dataMap.getDataMapArrayList(Constants.FORECAST_DAYS_KEY);
+            if (changedDays != null) {
+                for (DataMap dayMap : changedDays) {
+                    ForecastDay day = new ForecastDay(
+                            dayMap.getLong(Constants.DATE_KEY),
+                            dayMap.getInt(Constants.WEATHER_ID_KEY),
+                            dayMap.getString(Constants.HIGH_KEY),
+                            dayMap.getString(Constants.LOW_KEY),
+                            dayMap.getDouble(Constants.HUMIDITY_KEY));
+                    days.put(day.getDate(), day);
+                }
+            }
+
+            // Drop days that rolled out of the forecast window
+            long startDate = dataMap.getLong(Constants.FORECAST_START_DATE_KEY);
+            long endDate = dataMap.getLong(Constants.FORECAST_END_DATE_KEY);
+            List<ForecastDay> window = new ArrayList<>(
+                    days.subMap(startDate, true, endDate, true).values());
+
+            preferences.edit()
+                    .putInt(KEY_VERSION, version)
+                    .putString(KEY_DAYS, ForecastDay.toJsonArray(window))
+                    .apply();
+            Log.d(TAG, "Stored forecast " + version + ": " + window.size() + " days, "
+                    + (changedDays == null ? 0 : changedDays.size()) + " changed");
+            return version;
+        } catch (JSONException e) {
+            Log.e(TAG, e.getMessage(), e);
+            preferences.edit().clear().apply();
+            return Constants.NO_FORECAST_VERSION;
+        }
+    }
+
+    /**
+     * Returns stored forecast ordered by date, empty if there is none.
+     *
+     * @param context Application's context
+     */
+    public static synchronized List<ForecastDay> getDays(Context context) {
+        try {
+            return ForecastDay.fromJsonArray(getPreferences(context).getString(KEY_DAYS, null));
+        } catch (JSONException e) {
+            Log.e(TAG, e.getMessage(), e);
+            return new ArrayList<>();
+        }
+    }
+
+    private static SharedPreferences getPreferences(Context context) {
+        return context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.sync;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Process-wide counters for messages sent to the handheld device. Latency is measured from
+ * the moment a request is handled until the MessageApi reports its result.
+ */
+final class MessageMetrics {
+    private static final String TAG = MessageMetrics.class.getSimpleName();
+
+    private static int sSentCount;
+    private static int sFailedCount;
+    private static long sTotalLatencyMs;
+    private static long sMaxLatencyMs;
+
+    private MessageMetrics() {}
+
+    /**
+     * Returns timestamp to be passed to {@link #recordSuccess} or {@link #recordFailure}.
+     */
+    static long start() {
+        return SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * Records message delivered to the node.
+     *
+     * @param path      Path of the message
+     * @param startTime Timestamp returned by {@link #start()}
+     */
+    static synchronized void recordSuccess(String path, long startTime) {
+        long latencyMs = SystemClock.elapsedRealtime() - startTime;
+        sSentCount++;
+        sTotalLatencyMs += latencyMs;
+        sMaxLatencyMs = Math.max(sMaxLatencyMs, latencyMs);
+        Log.d(TAG, path + " sent in " + latencyMs + " ms (" + summary() + ")");
+    }
+
+    /**
+     * Records message that could not be delivered.
+     *
+     * @param path      Path of the message
+     * @param startTime Timestamp returned by {@link #start()}
+     * @param reason    Short description of the failure
+     */
+    static synchronized void recordFailure(String path, long startTime, String reason) {
+        long latencyMs = SystemClock.elapsedRealtime() - startTime;
+        sFailedCount++;
+        Log.e(TAG, path + " failed after " + latencyMs + " ms: " + reason
+                + " (" + summary() + ")");
+    }
+
+    /**
+     * Returns human readable summary of collected metrics.
+     */
+    static synchronized String summary() {
+        long averageMs = sSentCount == 0 ? 0 : sTotalLatencyMs / sSentCount;
+        return "sent=" + sSentCount + ", failed=" + sFailedCount
+                + ", avg=" + averageMs + " ms, max=" + sMaxLatencyMs + " ms";
+    }
+}
@@ -19,19 +19,14 @@ import android.app.IntentService;
 import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
-import android.support.annotation.NonNull;
 import android.util.Log;
 
 import com.example.android.sunshine.shared_resources.Constants;
+import com.example.android.sunshine.shared_resources.datalayer.DataLayerTransport;
 import com.google.android.gms.common.ConnectionResult;
 import com.google.android.gms.common.api.GoogleApiClient;
-import com.google.android.gms.common.api.ResultCallback;
-import com.google.android.gms.wearable.CapabilityApi;
-import com.google.android.gms.wearable.MessageApi;
-import com.google.android.gms.wearable.Node;
 import com.google.android.gms.wearable.Wearable;
 
-import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -55,6 +50,7 @@ public class MessageService extends IntentService {
     protected void onHandleIntent(Intent intent) {
         if (intent != null) {
             final String action = intent.getAction();
+            final long startTime = MessageMetrics.start();
 
             // Connect to Play Services and the Wearable API
             GoogleApiClient googleApiClient = new GoogleApiClient.Builder(getApplicationContext())
@@ -67,72 +63,45 @@ public class MessageService extends IntentService {
             if (!connectionResult.isSuccess() || !googleApiClient.isConnected()) {
                 Log.e(TAG, String.format(Constants.GOOGLE_API_CONNECTION_ERROR,
                         connectionResult.getErrorCode()));
+                MessageMetrics.recordFailure(action, startTime, "not connected");
+                return;
             }
 
+            DataLayerTransport transport = new CachingDataLayerTransport(googleApiClient);
+
             if (ACTION_LAUNCH_SUNSHINE.equals(action)) {
-                // Detect capable nodes
-                CapabilityApi.GetCapabilityResult result =
-                        Wearable.CapabilityApi.getCapability(
-                                googleApiClient, SUNSHINE_LAUNCHER_CAPABILITY_NAME,
-                                CapabilityApi.FILTER_REACHABLE).await();
-
-                Set<Node> connectedNodes = result.getCapability().getNodes();
-                String bestNodeId = pickBestNodeId(connectedNodes);
-
-                if (bestNodeId != null) {
-                    Wearable.MessageApi.sendMessage(googleApiClient, bestNodeId,
-                            Constants.LAUNCH_SUNSHINE_MESSAGE_PATH, null).setResultCallback(
-                            new ResultCallback<MessageApi.SendMessageResult>() {
-                                @Override
-                                public void onResult(
-                                        @NonNull MessageApi.SendMessageResult sendMessageResult) {
-                                    if (!sendMessageResult.getStatus().isSuccess()) {
-                                        Log.e(TAG, "onResult: Failed to send message to the node.");
-                                    }
-                                }
-                            }
-                    );
-                } else {
-                    // Unable to retrieve node with transcription capability
-                    Log.e(TAG, "onHandleIntent: Unable to retrieve node with capability of " +
-                            "launching Sunshine.");
-                }
+                sendMessage(transport, SUNSHINE_LAUNCHER_CAPABILITY_NAME,
+                        Constants.LAUNCH_SUNSHINE_MESSAGE_PATH, null, startTime);
             }
 
             if (ACTION_SYNC_SUNSHINE.equals(action)) {
-                // Detect capable nodes
-                CapabilityApi.GetCapabilityResult result =
-                        Wearable.CapabilityApi.getCapability(
-                                googleApiClient, SUNSHINE_SYNC_CAPABILITY_NAME,
-                                CapabilityApi.FILTER_REACHABLE).await();
-
-                Set<Node> connectedNodes = result.getCapability().getNodes();
-                String bestNodeId = pickBestNodeId(connectedNodes);
-
-                if (bestNodeId != null) {
-                    Wearable.MessageApi.sendMessage(googleApiClient, bestNodeId,
-                            Constants.SYNC_SUNSHINE_MESSAGE_PATH, null).setResultCallback(
-                            new ResultCallback<MessageApi.SendMessageResult>() {
-                                @Override
-                                public void onResult(
-                                        @NonNull MessageApi.SendMessageResult sendMessageResult) {
-                                    if (!sendMessageResult.getStatus().isSuccess()) {
-                                        Log.e(TAG, "onResult: Failed to send message to the node.");
-                                    }
-                                }
-                            }
-                    );
-                } else {
-                    // Unable to retrieve node with transcription capability
-                    Log.e(TAG, "onHandleIntent: Unable to retrieve node with capability of " +
-                            "syncing data.");
-                }
+                sendMessage(transport, SUNSHINE_SYNC_CAPABILITY_NAME,
+                        Constants.SYNC_SUNSHINE_MESSAGE_PATH, null, startTime);
             }
 
             googleApiClient.disconnect();
         }
     }
 
+    /**
+     * Sends message to the best node providing given capability and records its metrics.
+     *
+     * @param transport      Transport used to send the message
+     * @param capabilityName Capability required to handle the message
+     * @param path           Path of the message
+     * @param data           Payload of the message, may be null
+     * @param startTime      Timestamp of the request used for latency metrics
+     */
+    private void sendMessage(DataLayerTransport transport, String capabilityName, String path,
+                             byte[] data, long startTime) {
+        if (transport.sendMessage(capabilityName, path, data)) {
+            MessageMetrics.recordSuccess(path, startTime);
+        } else {
+            MessageMetrics.recordFailure(path, startTime,
+                    "unable to deliver message to node with capability " + capabilityName);
+        }
+    }
+
     /**
      * Creates an intent to launch Sunshine on handheld device.
      * @param context Application's context
@@ -145,29 +114,17 @@ public class MessageService extends IntentService {
     }
 
     /**
-     * Helper method that sends request sync message.
+     * Helper method that sends request sync message. The request is dropped if local weather
+     * data is still fresh or another request was sent recently (see {@link SyncRequestGovernor}).
      * @param context Application's context
      */
     public static void requestSyncIntent(Context context) {
+        if (!SyncRequestGovernor.tryAcquireSyncRequest(context)) {
+            return;
+        }
         Intent intent = new Intent(context, MessageService.class);
         intent.setAction(MessageService.ACTION_SYNC_SUNSHINE);
         context.startService(intent);
     }
 
-    /** Helper method to find best node to send message to
-     * @param nodes Capable Nodes
-     * @return Id of best node
-     */
-    private String pickBestNodeId(Set<Node> nodes) {
-        String bestNodeId = null;
-        // Find a nearby node or pick one arbitrarily
-        for (Node node : nodes) {
-            if (node.isNearby()) {
-                return node.getId();
-            }
-            bestNodeId = node.getId();
-        }
-        return bestNodeId;
-    }
-
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.sync;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.example.android.sunshine.R;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides whether the watch should ask the handheld device for fresh weather data. A sync
+ * request is only sent when local data is older than the configured TTL and no other request
+ * was sent within the debounce window.
+ */
+public final class SyncRequestGovernor {
+    private static final String TAG = SyncRequestGovernor.class.getSimpleName();
+
+    private static final String PREFERENCES_NAME = "sync_request_governor";
+    private static final String KEY_LAST_FORECAST_RECEIVED = "last_forecast_received";
+    private static final String KEY_LAST_SYNC_REQUESTED = "last_sync_requested";
+
+    private SyncRequestGovernor() {}
+
+    /**
+     * Records that weather data has just been received from the handheld device.
+     *
+     * @param context Application's context
+     */
+    public static synchronized void recordForecastReceived(Context context) {
+        getPreferences(context).edit()
+                .putLong(KEY_LAST_FORECAST_RECEIVED, System.currentTimeMillis())
+                .apply();
+    }
+
+    /**
+     * Checks if sync should be requested and, if so, records the request so calls made within
+     * the debounce window are collapsed into this one.
+     *
+     * @param context Application's context
+     * @return true if sync request should be sent to the handheld device
+     */
+    public static synchronized boolean tryAcquireSyncRequest(Context context) {
+        SharedPreferences preferences = getPreferences(context);
+        long now = System.currentTimeMillis();
+        long ttlMs = TimeUnit.MINUTES.toMillis(
+                context.getResources().getInteger(R.integer.sync_data_ttl_minutes));
+        long debounceMs = TimeUnit.SECONDS.toMillis(
+                context.getResources().getInteger(R.integer.sync_request_debounce_seconds));
+
+        long dataAgeMs = now - preferences.getLong(KEY_LAST_FORECAST_RECEIVED, 0);
+        if (dataAgeMs >= 0 && dataAgeMs < ttlMs) {
+            Log.d(TAG, "Weather data is fresh (" + dataAgeMs + " ms old), skipping sync request.");
+            return false;
+        }
+
+        long sinceLastRequestMs = now - preferences.getLong(KEY_LAST_SYNC_REQUESTED, 0);
+        if (sinceLastRequestMs >= 0 && sinceLastRequestMs < debounceMs) {
+            Log.d(TAG, "Sync requested " + sinceLastRequestMs + " ms ago, skipping sync request.");
+            return false;
+        }
+
+        preferences.edit().putLong(KEY_LAST_SYNC_REQUESTED, now).apply();
+        return true;
+    }
+
+    private static SharedPreferences getPreferences(Context context) {
+        return context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.sync;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.support.wearable.complications.ProviderUpdateRequester;
+
+import com.example.android.sunshine.complications.HumidityProviderService;
+import com.example.android.sunshine.complications.SummaryProviderService;
+import com.example.android.sunshine.complications.TemperatureProviderService;
+import com.example.android.sunshine.shared_resources.Constants;
+import com.example.android.sunshine.shared_resources.datalayer.DataLayerTransport;
+import com.google.android.gms.wearable.DataMap;
+
+import java.nio.charset.Charset;
+
+/**
+ * Handles weather DataItems received from the handheld: keeps local copies of current weather,
+ * applies forecast updates to {@link ForecastStore} and acknowledges them, and requests
+ * complication updates. Not tied to Google Play Services, so the same code runs over any
+ * {@link DataLayerTransport}.
+ */
+class WeatherDataReceiver implements DataLayerTransport.Listener {
+
+    private final Context mContext;
+    private final DataLayerTransport mTransport;
+    // Set when weather data is actually applied, deletions and other paths don't count
+    private boolean mWeatherReceived;
+
+    /**
+     * @param context   Application's context
+     * @param transport Transport local copies and acknowledgements are sent through
+     */
+    WeatherDataReceiver(Context context, DataLayerTransport transport) {
+        mContext = context;
+        mTransport = transport;
+    }
+
+    @Override
+    public void onDataChanged(String path, DataMap dataMap) {
+        if (Constants.WEATHER_DATA_TEMP_PATH.equals(path)) {
+            // Update local temperature data. Local copies are readable right away, so they are
+            // not put urgently and do not force a sync back to the handheld.
+            DataMap temperature = new DataMap();
+            temperature.putString(Constants.LOW_KEY, dataMap.getString(Constants.LOW_KEY));
+            temperature.putString(Constants.HIGH_KEY, dataMap.getString(Constants.HIGH_KEY));
+            temperature.putLong(Constants.DATE_KEY, dataMap.getLong(Constants.DATE_KEY));
+            mTransport.putDataItem(Constants.WEATHER_DATA_TEMP_PATH, temperature, false);
+
+            // Request complications update only when valid weather data is received
+            requestComplicationUpdate(TemperatureProviderService.class);
+            mWeatherReceived = true;
+        }
+        if (Constants.WEATHER_DATA_HUMIDITY_PATH.equals(path)) {
+            // Update local humidity data
+            DataMap humidity = new DataMap();
+            humidity.putDouble(Constants.HUMIDITY_KEY,
+                    dataMap.getDouble(Constants.HUMIDITY_KEY));
+            humidity.putLong(Constants.DATE_KEY, dataMap.getLong(Constants.DATE_KEY));
+            mTransport.putDataItem(Constants.WEATHER_DATA_HUMIDITY_PATH, humidity, false);
+
+            requestComplicationUpdate(HumidityProviderService.class);
+            mWeatherReceived = true;
+        }
+        if (Constants.WEATHER_DATA_SUMMARY_PATH.equals(path)) {
+            // Update local summary data
+            DataMap summary = new DataMap();
+            summary.putAsset(Constants.SUMMARY_KEY, dataMap.getAsset(Constants.SUMMARY_KEY));
+            summary.putLong(Constants.DATE_KEY, dataMap.getLong(Constants.DATE_KEY));
+            mTransport.putDataItem(Constants.WEATHER_DATA_SUMMARY_PATH, summary, false);
+
+            requestComplicationUpdate(SummaryProviderService.class);
+            mWeatherReceived = true;
+        }
+        if (Constants.WEATHER_DATA_FORECAST_PATH.equals(path)) {
+            // Apply forecast update and tell handheld which version is stored now
+            int version = ForecastStore.applyUpdate(mContext, dataMap);
+            acknowledgeForecast(version);
+            if (version != Constants.NO_FORECAST_VERSION) {
+                mWeatherReceived = true;
+            }
+        }
+    }
+
+    @Override
+    public void onMessageReceived(String path, byte[] data) {
+        // Handheld does not send messages to the watch face
+    }
+
+    /** Returns true if any weather data has been applied **/
+    boolean hasReceivedWeather() {
+        return mWeatherReceived;
+    }
+
+    /**
+     * Tells handheld device which forecast version is stored on the watch.
+     *
+     * @param version Stored version or {@link Constants#NO_FORECAST_VERSION} to request the
+     *                whole forecast
+     */
+    private void acknowledgeForecast(int version) {
+        long startTime = MessageMetrics.start();
+        if (mTransport.sendMessage(MessageService.SUNSHINE_SYNC_CAPABILITY_NAME,
+                Constants.FORECAST_ACK_MESSAGE_PATH,
+                String.valueOf(version).getBytes(Charset.forName("UTF-8")))) {
+            MessageMetrics.recordSuccess(Constants.FORECAST_ACK_MESSAGE_PATH, startTime);
+        } else {
+            MessageMetrics.recordFailure(Constants.FORECAST_ACK_MESSAGE_PATH, startTime,
+                    "unable to deliver message to node with capability "
+                            + MessageService.SUNSHINE_SYNC_CAPABILITY_NAME);
+        }
+    }
+
+    /**
+     * Helper method that triggers complication update request.
+     *
+     * @param cls Complication provider class to be updated
+     */
+    private void requestComplicationUpdate(Class<?> cls) {
+        ComponentName componentName = new ComponentName(mContext, cls);
+
+        ProviderUpdateRequester providerUpdateRequester =
+                new ProviderUpdateRequester(mContext, componentName);
+
+        providerUpdateRequester.requestUpdateAll();
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/*
+    Canvas counting draw calls made on it. Calls are still passed to the canvas, so drawables
+    and text measurement behave as on a regular canvas.
+ */
+class RecordingCanvas extends Canvas {
+
+    private int mDrawCalls;
+
+    RecordingCanvas(Bitmap bitmap) {
+        super(bitmap);
+    }
+
+    int getDrawCalls() {
+        return mDrawCalls;
+    }
+
+    void resetDrawCalls() {
+        mDrawCalls = 0;
+    }
+
+    @Override
+    public void drawColor(int color) {
+        mDrawCalls++;
+        super.drawColor(color);
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+        mDrawCalls++;
+        super.drawBitmap(bitmap, left, top, paint);
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint) {
+        mDrawCalls++;
+        super.drawBitmap(bitmap, src, dst, paint);
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+        mDrawCalls++;
+        super.drawBitmap(bitmap, src, dst, paint);
+    }
+
+    @Override
+    public void drawRect(Rect rect, Paint paint) {
+        mDrawCalls++;
+        super.drawRect(rect, paint);
+    }
+
+    @Override
+    public void drawRect(RectF rect, Paint paint) {
+        mDrawCalls++;
+        super.drawRect(rect, paint);
+    }
+
+    @Override
+    public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+        mDrawCalls++;
+        super.drawRoundRect(rect, rx, ry, paint);
+    }
+
+    @Override
+    public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+        mDrawCalls++;
+        super.drawLine(startX, startY, stopX, stopY, paint);
+    }
+
+    @Override
+    public void drawCircle(float cx, float cy, float radius, Paint paint) {
+        mDrawCalls++;
+        super.drawCircle(cx, cy, radius, paint);
+    }
+
+    @Override
+    public void drawArc(RectF oval, float startAngle, float sweepAngle, boolean useCenter,
+                        Paint paint) {
+        mDrawCalls++;
+        super.drawArc(oval, startAngle, sweepAngle, useCenter, paint);
+    }
+
+    @Override
+    public void drawPath(Path path, Paint paint) {
+        mDrawCalls++;
+        super.drawPath(path, paint);
+    }
+
+    @Override
+    public void drawText(String text, float x, float y, Paint paint) {
+        mDrawCalls++;
+        super.drawText(text, x, y, paint);
+    }
+
+    @Override
+    public void drawText(String text, int start, int end, float x, float y, Paint paint) {
+        mDrawCalls++;
+        super.drawText(text, start, end, x, y, paint);
+    }
+
+    @Override
+    public void drawText(CharSequence text, int start, int end, float x, float y, Paint paint) {
+        mDrawCalls++;
+        super.drawText(text, start, end, x, y, paint);
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.graphics.Rect;
+import android.graphics.drawable.Icon;
+import android.support.wearable.complications.ComplicationData;
+import android.support.wearable.complications.ComplicationText;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+import static org.junit.Assert.assertTrue;
+
+/*
+    Draws watch face frames on the JVM with a fake clock and synthetic complication data, and
+    reports time, allocated bytes and draw calls per frame for every mode. Canvas is simulated
+    by Robolectric, so numbers are only meant for comparing revisions on the same machine;
+    allocation free frames on a device are checked by TestRenderAllocations.
+
+    Run with: ./gradlew :watchface:testDebugUnitTest --tests '*RenderBenchmark'
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class RenderBenchmark {
+
+    private static final int SURFACE_SIZE = 320;
+    // Thursday, 1 December 2016 10:09:30 UTC
+    private static final long START_TIME_MS = 1480586970000L;
+    private static final long INTERACTIVE_FRAME_INTERVAL_MS = 1000;
+    private static final long AMBIENT_FRAME_INTERVAL_MS = 60000;
+    private static final int WARM_UP_FRAMES = 10;
+    private static final int MEASURED_FRAMES = 200;
+
+    // What a measured frame draws on the recording canvas
+    private static final int DRAW_FRAME = 0;
+    private static final int DRAW_FRAME_UNCACHED = 1;
+    private static final int DRAW_COMPLICATIONS = 2;
+
+    private WatchFaceRenderer mRenderer;
+    private RecordingCanvas mCanvas;
+
+    @Before
+    public void setUp() {
+        mRenderer = new WatchFaceRenderer(RuntimeEnvironment.application, null);
+        mRenderer.onSurfaceChanged(SURFACE_SIZE, SURFACE_SIZE);
+        Bitmap background = Bitmap.createBitmap(SURFACE_SIZE, SURFACE_SIZE,
+                Bitmap.Config.ARGB_8888);
+        background.eraseColor(Color.DKGRAY);
+        mRenderer.setBackgrounds(background, background);
+        mRenderer.setPeekCardBounds(new Rect(0, SURFACE_SIZE - 60, SURFACE_SIZE, SURFACE_SIZE));
+
+        mRenderer.updateComplicationData(ComplicationsHelper.TOP_DIAL_COMPLICATION,
+                createShortTextData("12\u00B0", "21\u00B0"));
+        Bitmap icon = Bitmap.createBitmap(96, 96, Bitmap.Config.ARGB_8888);
+        icon.eraseColor(Color.YELLOW);
+        mRenderer.updateComplicationData(ComplicationsHelper.LEFT_DIAL_COMPLICATION,
+                new ComplicationData.Builder(ComplicationData.TYPE_SMALL_IMAGE)
+                        .setImageStyle(ComplicationData.IMAGE_STYLE_ICON)
+                        .setSmallImage(Icon.createWithBitmap(icon))
+                        .build());
+        mRenderer.updateComplicationData(ComplicationsHelper.BOTTOM_DIAL_COMPLICATION,
+                new ComplicationData.Builder(ComplicationData.TYPE_RANGED_VALUE)
+                        .setValue(64f)
+                        .setMinValue(0f)
+                        .setMaxValue(100f)
+                        .setShortTitle(ComplicationText.plainText("Hum"))
+                        .setShortText(ComplicationText.plainText("64%"))
+                        .build());
+
+        mCanvas = new RecordingCanvas(Bitmap.createBitmap(SURFACE_SIZE, SURFACE_SIZE,
+                Bitmap.Config.ARGB_8888));
+    }
+
+    @Test
+    public void interactive() {
+        mRenderer.setAmbientMode(false);
+        report("interactive", measureFrames(INTERACTIVE_FRAME_INTERVAL_MS, DRAW_FRAME));
+    }
+
+    @Test
+    public void interactiveMute() {
+        mRenderer.setAmbientMode(false);
+        mRenderer.setMuteMode(true);
+        report("mute", measureFrames(INTERACTIVE_FRAME_INTERVAL_MS, DRAW_FRAME));
+    }
+
+    @Test
+    public void interactiveShortTextBottom() {
+        mRenderer.setAmbientMode(false);
+        mRenderer.updateComplicationData(ComplicationsHelper.BOTTOM_DIAL_COMPLICATION,
+                createShortTextData("UV", "3"));
+        report("short text bottom", measureFrames(INTERACTIVE_FRAME_INTERVAL_MS, DRAW_FRAME));
+    }
+
+    @Test
+    public void interactiveUncached() {
+        // Static layer rebuilt on every frame, as when complication data keeps changing
+        mRenderer.setAmbientMode(false);
+        report("uncached", measureFrames(INTERACTIVE_FRAME_INTERVAL_MS, DRAW_FRAME_UNCACHED));
+    }
+
+    @Test
+    public void complications() {
+        // Complications alone, drawn directly on the recording canvas
+        mRenderer.setAmbientMode(false);
+        report("complications", measureFrames(INTERACTIVE_FRAME_INTERVAL_MS,
+                DRAW_COMPLICATIONS));
+    }
+
+    @Test
+    public void ambient() {
+        mRenderer.setAmbientMode(true);
+        report("ambient", measureFrames(AMBIENT_FRAME_INTERVAL_MS, DRAW_FRAME));
+    }
+
+    @Test
+    public void ambientRedraw() {
+        // Redraws within the minute, e.g. peek card moving, only present the ambient frame
+        mRenderer.setAmbientMode(true);
+        report("ambient redraw", measureFrames(INTERACTIVE_FRAME_INTERVAL_MS, DRAW_FRAME));
+    }
+
+    @Test
+    public void lowBitAmbient() {
+        mRenderer.setLowBitAmbient(true);
+        mRenderer.setAmbientMode(true);
+        report("low-bit ambient", measureFrames(AMBIENT_FRAME_INTERVAL_MS, DRAW_FRAME));
+    }
+
+    @Test
+    public void burnInAmbient() {
+        mRenderer.setBurnInProtection(true);
+        mRenderer.setAmbientMode(true);
+        report("burn-in ambient", measureFrames(AMBIENT_FRAME_INTERVAL_MS, DRAW_FRAME));
+    }
+
+    private static ComplicationData createShortTextData(String title, String text) {
+        return new ComplicationData.Builder(ComplicationData.TYPE_SHORT_TEXT)
+                .setShortTitle(ComplicationText.plainText(title))
+                .setShortText(ComplicationText.plainText(text))
+                .build();
+    }
+
+    /**
+     * Draws warm up frames, then measures frames drawn at the given interval of the fake clock.
+     *
+     * @param frameIntervalMs Time between frames in milliseconds
+     * @param drawMode        What each frame draws, one of DRAW_* constants
+     */
+    private Result measureFrames(long frameIntervalMs, int drawMode) {
+        long now = START_TIME_MS;
+        for (int frame = 0; frame < WARM_UP_FRAMES; frame++) {
+            drawFrame(now, drawMode);
+            now += frameIntervalMs;
+        }
+
+        mCanvas.resetDrawCalls();
+        int rebuildsBefore = mRenderer.getLayerRebuildCount();
+        long bytesBefore = getAllocatedBytes();
+        long startNanos = System.nanoTime();
+        for (int frame = 0; frame < MEASURED_FRAMES; frame++) {
+            drawFrame(now, drawMode);
+            now += frameIntervalMs;
+        }
+        long durationNanos = System.nanoTime() - startNanos;
+        long bytes = getAllocatedBytes() - bytesBefore;
+
+        Result result = new Result();
+        result.nanosPerFrame = durationNanos / MEASURED_FRAMES;
+        result.bytesPerFrame = bytesBefore < 0 ? -1 : bytes / MEASURED_FRAMES;
+        result.drawCallsPerFrame = mCanvas.getDrawCalls() / (float) MEASURED_FRAMES;
+        result.layerRebuilds = mRenderer.getLayerRebuildCount() - rebuildsBefore;
+        return result;
+    }
+
+    private void drawFrame(long now, int drawMode) {
+        switch (drawMode) {
+            case DRAW_FRAME_UNCACHED:
+                mRenderer.invalidateLayers();
+                mRenderer.drawFrame(mCanvas, now);
+                break;
+            case DRAW_COMPLICATIONS:
+                mRenderer.getComplicationsHelper().drawComplications(mCanvas, now);
+                break;
+            default:
+                mRenderer.drawFrame(mCanvas, now);
+        }
+    }
+
+    /**
+     * Returns bytes allocated by the current thread so far or -1 if the JVM can't tell.
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        return ((com.sun.management.ThreadMXBean) bean)
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void report(String mode, Result result) {
+        System.out.println(String.format(Locale.US,
+                "RenderBenchmark %-18s %8.1f us/frame %8d bytes/frame %5.1f draws/frame"
+                        + " %3d layer rebuilds",
+                mode, result.nanosPerFrame / 1000f, result.bytesPerFrame,
+                result.drawCallsPerFrame, result.layerRebuilds));
+        assertTrue("Error: No draw calls recorded in " + mode + " mode",
+                result.drawCallsPerFrame > 0);
+    }
+
+    private static class Result {
+        long nanosPerFrame;
+        long bytesPerFrame;
+        float drawCallsPerFrame;
+        int layerRebuilds;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/*
+    Compares lookups of the hit-test index with testing every region, for dense layouts of
+    many small regions.
+ */
+public class TestHitTestIndex {
+
+    private static final int SURFACE_SIZE = 320;
+
+    @Test
+    public void bezelLayoutMatchesBruteForce() {
+        // A region for every minute around the bezel, plus the three complication slots
+        float[][] regions = new float[63][];
+        float center = SURFACE_SIZE / 2f;
+        for (int i = 0; i < 60; i++) {
+            double angle = i * Math.PI * 2 / 60;
+            regions[i] = new float[]{center + (float) Math.sin(angle) * 150f,
+                    center - (float) Math.cos(angle) * 150f, 8f};
+        }
+        regions[60] = new float[]{center, 70f, 45f};
+        regions[61] = new float[]{90f, center, 28f};
+        regions[62] = new float[]{center, 175f, 45f};
+        assertMatchesBruteForce(regions);
+    }
+
+    @Test
+    public void overlappingGridLayoutMatchesBruteForce() {
+        // 20 x 20 regions overlapping their neighbours, earlier regions win
+        float[][] regions = new float[400][];
+        for (int row = 0; row < 20; row++) {
+            for (int column = 0; column < 20; column++) {
+                regions[row * 20 + column] = new float[]{column * 16f + 8f, row * 16f + 8f, 11f};
+            }
+        }
+        assertMatchesBruteForce(regions);
+    }
+
+    @Test
+    public void regionsOutsideSurfaceAreClipped() {
+        HitTestIndex index = new HitTestIndex();
+        index.reset(SURFACE_SIZE, SURFACE_SIZE);
+        index.addCircle(7, -10f, -10f, 30f);
+        index.addCircle(8, SURFACE_SIZE + 10f, SURFACE_SIZE / 2f, 30f);
+        index.build();
+
+        assertEquals(7, index.findRegion(5, 5));
+        assertEquals(8, index.findRegion(SURFACE_SIZE - 5, SURFACE_SIZE / 2));
+        assertEquals(-1, index.findRegion(-5, -5));
+        assertEquals(-1, index.findRegion(SURFACE_SIZE, SURFACE_SIZE / 2));
+    }
+
+    @Test
+    public void resetRemovesRegions() {
+        HitTestIndex index = new HitTestIndex();
+        index.reset(SURFACE_SIZE, SURFACE_SIZE);
+        index.addCircle(1, 100f, 100f, 20f);
+        index.build();
+        assertEquals(1, index.findRegion(100, 100));
+
+        index.reset(SURFACE_SIZE, SURFACE_SIZE);
+        index.build();
+        assertEquals(0, index.getRegionCount());
+        assertEquals(-1, index.findRegion(100, 100));
+    }
+
+    /**
+     * Checks every pixel of the surface against all regions, in the order they were added.
+     *
+     * @param regions Center x, center y and radius of each region, id is the region's index
+     */
+    private static void assertMatchesBruteForce(float[][] regions) {
+        HitTestIndex index = new HitTestIndex();
+        index.reset(SURFACE_SIZE, SURFACE_SIZE);
+        for (int id = 0; id < regions.length; id++) {
+            index.addCircle(id, regions[id][0], regions[id][1], regions[id][2]);
+        }
+        index.build();
+        assertEquals(regions.length, index.getRegionCount());
+
+        for (int y = 0; y < SURFACE_SIZE; y++) {
+            for (int x = 0; x < SURFACE_SIZE; x++) {
+                int expected = -1;
+                for (int id = 0; id < regions.length && expected == -1; id++) {
+                    float dx = regions[id][0] - x;
+                    float dy = regions[id][1] - y;
+                    if (dx * dx + dy * dy < regions[id][2] * regions[id][2]) {
+                        expected = id;
+                    }
+                }
+                assertEquals("Error: Wrong region at " + x + ", " + y, expected,
+                        index.findRegion(x, y));
+            }
+        }
+    }
+}
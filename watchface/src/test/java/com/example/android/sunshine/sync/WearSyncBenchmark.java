@@ -0,0 +1,267 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.android.sunshine.sync;
+
+import android.content.Context;
+
+import com.example.android.sunshine.BuildConfig;
+import com.example.android.sunshine.shared_resources.Constants;
+import com.example.android.sunshine.shared_resources.ForecastDay;
+import com.example.android.sunshine.shared_resources.WearForecastTracker;
+import com.example.android.sunshine.shared_resources.datalayer.DataLayerTransport;
+import com.example.android.sunshine.shared_resources.datalayer.LoopbackTransport;
+import com.google.android.gms.wearable.DataMap;
+import com.google.android.gms.wearable.PutDataMapRequest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/*
+    Runs the handheld to wearable weather sync on the JVM: the handheld's WearForecastTracker
+    creates the requests, LoopbackTransport carries the DataMaps over a simulated Bluetooth
+    link and the wearable's WeatherDataReceiver applies them to ForecastStore and sends the
+    acknowledgements back. Reports end-to-end latency (from creating the request until the
+    wearable stored it) and link bytes and transfers per sync for every payload format.
+
+    Latency is link time only, the Data Layer's batching of non-urgent items is not
+    simulated. Numbers are meant for comparing payload formats and revisions.
+
+    Run with: ./gradlew :watchface:testDebugUnitTest --tests '*WearSyncBenchmark'
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class WearSyncBenchmark {
+
+    // Link resembling a Bluetooth LE connection between phone and watch
+    private static final long LINK_LATENCY_MS = 15;
+    private static final long LINK_BYTES_PER_SECOND = 40 * 1024;
+
+    private static final int SYNC_COUNT = 20;
+    private static final int FORECAST_DAYS = 7;
+    // Saturday, 20 December 2014 00:00:00 UTC
+    private static final long START_DATE_MS = 1419033600000L;
+    private static final long DAY_MS = 24 * 60 * 60 * 1000L;
+    private static final long DELIVERY_TIMEOUT_S = 10;
+
+    private Context mContext;
+    private LoopbackTransport mHandheld;
+    private LoopbackTransport mWearable;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        LoopbackTransport[] transports =
+                LoopbackTransport.createPair(LINK_LATENCY_MS, LINK_BYTES_PER_SECOND, 0);
+        mHandheld = transports[0];
+        mWearable = transports[1];
+    }
+
+    @After
+    public void tearDown() {
+        mHandheld.shutdown();
+    }
+
+    @Test
+    public void forecastFullTransfer() throws Exception {
+        // Acknowledgements are dropped, so every update carries the whole forecast
+        report("forecast, full transfer", runForecastSyncs(false, false));
+    }
+
+    @Test
+    public void forecastDeltaOneDayChanged() throws Exception {
+        report("forecast, delta (1 changed day)", runForecastSyncs(true, false));
+    }
+
+    @Test
+    public void forecastDeltaWindowRolled() throws Exception {
+        report("forecast, delta (window rolled by a day)", runForecastSyncs(true, true));
+    }
+
+    @Test
+    public void currentWeather() throws Exception {
+        final CountDownLatch[] received = new CountDownLatch[1];
+        final WeatherDataReceiver receiver = new WeatherDataReceiver(mContext, mWearable);
+        mWearable.setListener(new DataLayerTransport.Listener() {
+            @Override
+            public void onDataChanged(String path, DataMap dataMap) {
+                receiver.onDataChanged(path, dataMap);
+                if (Constants.WEATHER_DATA_TEMP_PATH.equals(path)
+                        || Constants.WEATHER_DATA_HUMIDITY_PATH.equals(path)) {
+                    received[0].countDown();
+                }
+            }
+
+            @Override
+            public void onMessageReceived(String path, byte[] data) {
+            }
+        });
+
+        Result result = new Result();
+        for (int i = 0; i < SYNC_COUNT; i++) {
+            received[0] = new CountDownLatch(2);
+            long date = START_DATE_MS + i * DAY_MS;
+            DataMap temperature = new DataMap();
+            temperature.putString(Constants.HIGH_KEY, formatTemperature(20 + i % 10));
+            temperature.putString(Constants.LOW_KEY, formatTemperature(10 + i % 10));
+            temperature.putLong(Constants.DATE_KEY, date);
+            DataMap humidity = new DataMap();
+            humidity.putDouble(Constants.HUMIDITY_KEY, 40 + i % 50);
+            humidity.putLong(Constants.DATE_KEY, date);
+
+            long start = System.nanoTime();
+            mHandheld.putDataItem(Constants.WEATHER_DATA_TEMP_PATH, temperature, false);
+            mHandheld.putDataItem(Constants.WEATHER_DATA_HUMIDITY_PATH, humidity, false);
+            assertTrue("Error: Sync " + i + " not delivered",
+                    received[0].await(DELIVERY_TIMEOUT_S, TimeUnit.SECONDS));
+            result.addLatency(System.nanoTime() - start);
+        }
+        report("current weather (temperature + humidity)", result);
+    }
+
+    /**
+     * Syncs changing forecasts through the tracker, the link and the store.
+     *
+     * @param forwardAcks true if acknowledgements reach the tracker, so updates are deltas
+     * @param rollWindow  true if every sync moves the forecast window by a day, otherwise a
+     *                    single day changes
+     */
+    private Result runForecastSyncs(final boolean forwardAcks, boolean rollWindow)
+            throws Exception {
+        final CountDownLatch[] stored = new CountDownLatch[1];
+        final CountDownLatch[] acknowledged = new CountDownLatch[1];
+
+        final WeatherDataReceiver receiver = new WeatherDataReceiver(mContext, mWearable);
+        mWearable.setListener(new DataLayerTransport.Listener() {
+            @Override
+            public void onDataChanged(String path, DataMap dataMap) {
+                receiver.onDataChanged(path, dataMap);
+                if (Constants.WEATHER_DATA_FORECAST_PATH.equals(path)) {
+                    stored[0].countDown();
+                }
+            }
+
+            @Override
+            public void onMessageReceived(String path, byte[] data) {
+            }
+        });
+        // Stands in for SunshineWearListener
+        mHandheld.setListener(new DataLayerTransport.Listener() {
+            @Override
+            public void onDataChanged(String path, DataMap dataMap) {
+                // Local copies put by the wearable
+            }
+
+            @Override
+            public void onMessageReceived(String path, byte[] data) {
+                if (Constants.FORECAST_ACK_MESSAGE_PATH.equals(path)) {
+                    if (forwardAcks) {
+                        WearForecastTracker.onAcknowledged(mContext, Integer.parseInt(
+                                new String(data, Charset.forName("UTF-8"))));
+                    }
+                    acknowledged[0].countDown();
+                }
+            }
+        });
+
+        Result result = new Result();
+        for (int i = 0; i < SYNC_COUNT; i++) {
+            stored[0] = new CountDownLatch(1);
+            acknowledged[0] = new CountDownLatch(1);
+            List<ForecastDay> days = rollWindow ? createRolledForecast(i) : createForecast(i);
+
+            long start = System.nanoTime();
+            PutDataMapRequest request = WearForecastTracker.createRequest(mContext, days, false);
+            assertTrue("Error: No request for sync " + i, request != null);
+            mHandheld.putDataItem(request.getUri().getPath(), request.getDataMap(),
+                    request.isUrgent());
+            assertTrue("Error: Sync " + i + " not delivered",
+                    stored[0].await(DELIVERY_TIMEOUT_S, TimeUnit.SECONDS));
+            result.addLatency(System.nanoTime() - start);
+
+            assertEquals("Error: Wearable stored a different forecast after sync " + i,
+                    days, ForecastStore.getDays(mContext));
+            // Next request is computed against the acknowledged version
+            assertTrue("Error: Sync " + i + " not acknowledged",
+                    acknowledged[0].await(DELIVERY_TIMEOUT_S, TimeUnit.SECONDS));
+        }
+        return result;
+    }
+
+    /**
+     * Returns forecast of a fixed window. Every iteration raises the high temperature of one
+     * day, so consecutive forecasts differ in a single day.
+     */
+    private static List<ForecastDay> createForecast(int iteration) {
+        List<ForecastDay> days = new ArrayList<>(FORECAST_DAYS);
+        for (int day = 0; day < FORECAST_DAYS; day++) {
+            // Number of iterations so far that changed this day
+            int changes = iteration >= day ? (iteration - day) / FORECAST_DAYS + 1 : 0;
+            int high = 20 + day + changes;
+            days.add(new ForecastDay(START_DATE_MS + day * DAY_MS, 800 + day,
+                    formatTemperature(high), formatTemperature(10 + day), 40 + day));
+        }
+        return days;
+    }
+
+    /** Returns forecast starting at the day of the iteration, days don't change otherwise **/
+    private static List<ForecastDay> createRolledForecast(int iteration) {
+        List<ForecastDay> days = new ArrayList<>(FORECAST_DAYS);
+        for (int day = iteration; day < iteration + FORECAST_DAYS; day++) {
+            days.add(new ForecastDay(START_DATE_MS + day * DAY_MS, 800 + day % 5,
+                    formatTemperature(20 + day % 10), formatTemperature(10 + day % 10),
+                    40 + day % 50));
+        }
+        return days;
+    }
+
+    private static String formatTemperature(int temperature) {
+        return temperature + "\u00B0";
+    }
+
+    private void report(String format, Result result) {
+        System.out.println(String.format(Locale.US,
+                "WearSyncBenchmark %-42s latency avg %6.1f ms, max %6.1f ms"
+                        + " %7d link bytes/sync %5.1f transfers/sync",
+                format, result.totalLatencyNanos / 1e6 / SYNC_COUNT,
+                result.maxLatencyNanos / 1e6, mHandheld.getBytesTransferred() / SYNC_COUNT,
+                mHandheld.getTransfers() / (float) SYNC_COUNT));
+    }
+
+    private static class Result {
+        long totalLatencyNanos;
+        long maxLatencyNanos;
+
+        void addLatency(long latencyNanos) {
+            totalLatencyNanos += latencyNanos;
+            maxLatencyNanos = Math.max(maxLatencyNanos, latencyNanos);
+        }
+    }
+}